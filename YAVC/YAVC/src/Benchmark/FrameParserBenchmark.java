@@ -0,0 +1,242 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Benchmark;
+
+import java.awt.Point;
+import java.util.Random;
+
+import Decoder.LegacyFrameParser;
+import Main.config;
+import Utils.DCTObject;
+import Utils.Vector;
+
+/*
+ * Microbenchmark of the format version 1 frame parser.
+ * Compares the former String.split() based parser with the cursor of the LegacyFrameParser
+ * on the same synthetic frame (checksums must be equal).
+ * Usage: java Benchmark.FrameParserBenchmark [blocks] [iterations]
+ */
+public class FrameParserBenchmark {
+	private static final int LUMA_SIZE = 4;
+	private static final int CHROMA_SIZE = 2;
+	
+	public static void main(String[] args) {
+		int blocks = args.length > 0 ? Integer.parseInt(args[0]) : 8000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		
+		String frame = create_frame(new Random(42), blocks, blocks / 4);
+		LegacyFrameParser parser = new LegacyFrameParser();
+		
+		long splitChecksum = 0, cursorChecksum = 0;
+		
+		//Warm up both paths
+		for (int i = 0; i < 5; i++) {
+			splitChecksum = run_split(frame);
+			cursorChecksum = run_cursor(parser, frame);
+		}
+		
+		if (splitChecksum != cursorChecksum) {
+			System.err.println("Cursor does not match the split parser! (" + splitChecksum + " != " + cursorChecksum + ")");
+		}
+		
+		long splitTime = 0, cursorTime = 0;
+		
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			splitChecksum += run_split(frame);
+			splitTime += System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			cursorChecksum += run_cursor(parser, frame);
+			cursorTime += System.nanoTime() - start;
+		}
+		
+		System.out.println("Blocks: " + blocks + ", vectors: " + blocks / 4 + ", chars: " + frame.length());
+		System.out.printf("Split parser: %.3f ms/frame%n", splitTime / 1e6 / iterations);
+		System.out.printf("Cursor parser: %.3f ms/frame%n", cursorTime / 1e6 / iterations);
+		System.out.printf("Speedup: %.2fx%n", (double)splitTime / (double)cursorTime);
+	}
+	
+	private static long run_cursor(LegacyFrameParser parser, String frame) {
+		long sum = 0;
+		parser.reset(frame);
+		
+		for (DCTObject obj = parser.next_block(); obj != null; obj = parser.next_block()) {
+			sum += checksum(obj.getY()) + checksum(obj.getCbDCT()) + checksum(obj.getCrDCT());
+			sum += obj.getPosition().x * 31 + obj.getPosition().y;
+		}
+		
+		for (Vector v : parser.read_vectors()) {
+			sum += checksum(v);
+		}
+		
+		return sum;
+	}
+	
+	/*
+	 * Purpose: Parse a frame like DataPipeEngine did before the LegacyFrameParser
+	 * Return Type: long => Checksum of the coefficients, positions and vectors
+	 * Params: String frame => Content of the frame
+	 */
+	private static long run_split(String frame) {
+		long sum = 0;
+		String[] splitVecs = frame.split(Character.toString(config.V_DEF_S));
+		splitVecs[0] = splitVecs[0].replaceFirst(Character.toString(config.DCT_DEF_S), "");
+		String[] matrices = splitVecs[0].split(Character.toString(config.DCT_POS_END_DEF));
+		
+		for (String matrix : matrices) {
+			int YEnd = matrix.indexOf(config.DCT_Y_END_DEF);
+			int CbEnd = matrix.indexOf(config.DCT_CB_END_DEF);
+			int CrEnd = matrix.indexOf(config.DCT_CR_END_DEF);
+			
+			String[] YCoef = matrix.substring(0, YEnd).split(Character.toString(config.DCT_MATRIX_NL_DEF));
+			String[] CbCoef = matrix.substring(YEnd + 1, CbEnd).split(Character.toString(config.DCT_MATRIX_NL_DEF));
+			String[] CrCoef = matrix.substring(CbEnd + 1, CrEnd).split(Character.toString(config.DCT_MATRIX_NL_DEF));
+			String Pos = matrix.substring(CrEnd + 1, matrix.length());
+			
+			int[][] YCols = new int[YCoef.length][YCoef.length];
+			int[][] CbCols = new int[CbCoef.length][CbCoef.length];
+			int[][] CrCols = new int[CrCoef.length][CrCoef.length];
+			
+			for (int y = 0; y < YCoef.length; y++) {
+				for (int x = 0; x < YCoef[y].length(); x++) {
+					YCols[y][x] = shift_DCT_back(YCoef[y].charAt(x));
+				}
+			}
+			
+			for (int y = 0; y < CbCoef.length; y++) {
+				for (int x = 0; x < CbCoef.length; x++) {
+					CbCols[y][x] = shift_DCT_back(CbCoef[y].charAt(x));
+					CrCols[y][x] = shift_DCT_back(CrCoef[y].charAt(x));
+				}
+			}
+			
+			sum += checksum(YCols) + checksum(CbCols) + checksum(CrCols);
+			sum += ((int)Pos.charAt(0) - config.RESERVED_TABLE_SIZE) * 31 + ((int)Pos.charAt(1) - config.RESERVED_TABLE_SIZE);
+		}
+		
+		int start = frame.indexOf(config.V_DEF_S);
+		String data = frame.substring(start + 3, frame.length());
+		
+		for (int i = 0; i < data.length(); i += 5) {
+			int info = ((int)data.charAt(i + 4)) - config.RESERVED_TABLE_SIZE;
+			Vector v = new Vector(new Point(((int)data.charAt(i)) - config.RESERVED_TABLE_SIZE, ((int)data.charAt(i + 1)) - config.RESERVED_TABLE_SIZE),
+				shift_vec_span_back(data.charAt(i + 2)), shift_vec_span_back(data.charAt(i + 3)), (info >> 8) & 0xFF, info & 0xFF);
+			sum += checksum(v);
+		}
+		
+		return sum;
+	}
+	
+	private static long checksum(int[][] matrix) {
+		long sum = 0;
+		
+		for (int y = 0; y < matrix.length; y++) {
+			for (int x = 0; x < matrix[y].length; x++) {
+				sum = sum * 7 + matrix[y][x];
+			}
+		}
+		
+		return sum;
+	}
+	
+	private static long checksum(Vector v) {
+		return v.getStartingPoint().x + v.getStartingPoint().y * 3 + v.getSpanX() * 5 + v.getSpanY() * 7 + v.getReferenceDrawback() * 11 + v.getReferenceSize() * 13;
+	}
+	
+	/*
+	 * Purpose: Build a frame in the format version 1 layout (see OutputWriter of version 1)
+	 * Return Type: String => Frame content
+	 * Params: Random random => Source of the coefficients;
+	 * 			int blocks => Amount of blocks;
+	 * 			int vectors => Amount of vectors
+	 */
+	private static String create_frame(Random random, int blocks, int vectors) {
+		StringBuilder frame = new StringBuilder();
+		frame.append(config.DCT_DEF_S);
+		
+		for (int i = 0; i < blocks; i++) {
+			append_matrix(frame, random, LUMA_SIZE, config.DCT_Y_END_DEF);
+			append_matrix(frame, random, CHROMA_SIZE, config.DCT_CB_END_DEF);
+			append_matrix(frame, random, CHROMA_SIZE, config.DCT_CR_END_DEF);
+			frame.append((char)(random.nextInt(1920) + config.RESERVED_TABLE_SIZE));
+			frame.append((char)(random.nextInt(1080) + config.RESERVED_TABLE_SIZE));
+			frame.append(config.DCT_POS_END_DEF);
+		}
+		
+		frame.append(config.V_DEF_S);
+		frame.append((char)(vectors >> 16));
+		frame.append((char)(vectors & 0xFFFF));
+		
+		for (int i = 0; i < vectors; i++) {
+			frame.append((char)(random.nextInt(1920) + config.RESERVED_TABLE_SIZE));
+			frame.append((char)(random.nextInt(1080) + config.RESERVED_TABLE_SIZE));
+			frame.append(shift_vec_span(random.nextInt(129) - 64));
+			frame.append(shift_vec_span(random.nextInt(129) - 64));
+			frame.append((char)((((random.nextInt(config.MAX_BACK_REF) + 1) << 8) | 4) + config.RESERVED_TABLE_SIZE));
+		}
+		
+		return frame.toString();
+	}
+	
+	private static void append_matrix(StringBuilder frame, Random random, int size, char end) {
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				frame.append(shift_DCT_bits(random.nextInt(201) - 100));
+			}
+			
+			frame.append(y + 1 < size ? config.DCT_MATRIX_NL_DEF : end);
+		}
+	}
+	
+	private static char shift_DCT_bits(int val) {
+		if (val < 0) {
+			return (char)(1 << 14 | (Math.abs(val) + config.RESERVED_TABLE_SIZE) & 0xFFF);
+		}
+		
+		return (char)(val + config.RESERVED_TABLE_SIZE);
+	}
+	
+	private static int shift_DCT_back(char val) {
+		if (((val >> 14) & 0x1) == 1) {
+			return -1 * (((int)val - config.RESERVED_TABLE_SIZE) & 0xFFF);
+		}
+		
+		return (((int)val - config.RESERVED_TABLE_SIZE) & 0xFFF);
+	}
+	
+	private static char shift_vec_span(int span) {
+		if (span < 0) {
+			return (char)((1 << 14) | ((Math.abs(span) + config.RESERVED_TABLE_SIZE) & 0xFFF));
+		}
+		
+		return (char)(span + config.RESERVED_TABLE_SIZE);
+	}
+	
+	private static int shift_vec_span_back(char span) {
+		if (((span >> 14) & 0x1) == 1) {
+			return (-1 * (((int)span & 0xFFF) - config.RESERVED_TABLE_SIZE));
+		}
+		
+		return ((int)span) - config.RESERVED_TABLE_SIZE;
+	}
+}
@@ -0,0 +1,153 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Benchmark;
+
+import java.awt.Point;
+import java.util.Random;
+
+import Encoder.VectorEngine;
+import Utils.PlanarFrame;
+import Utils.YCbCrMakroBlock;
+
+/*
+ * Microbenchmark of the block matching kernel.
+ * Compares the former per pixel double[] SAD with the plane based kernel
+ * of the VectorEngine on the same candidates (results must be equal).
+ * Usage: java Benchmark.SADBenchmark [blockSize] [iterations]
+ */
+public class SADBenchmark {
+	private static final int WIDTH = 1920;
+	private static final int HEIGHT = 1080;
+	private static final int CANDIDATES = 4096;
+	
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		
+		Random random = new Random(42);
+		PlanarFrame cur = create_random_frame(random);
+		PlanarFrame ref = create_random_frame(random);
+		Point[] positions = new Point[CANDIDATES];
+		
+		//Candidates lie inside the search window (+-64) of the block, like in the hexagon search
+		Point blockPos = new Point(WIDTH / 2, HEIGHT / 2);
+		
+		for (int i = 0; i < CANDIDATES; i++) {
+			positions[i] = new Point(blockPos.x + random.nextInt(129) - 64, blockPos.y + random.nextInt(129) - 64);
+		}
+		
+		VectorEngine engine = new VectorEngine();
+		YCbCrMakroBlock block = new YCbCrMakroBlock(cur, blockPos, size);
+		
+		double legacyChecksum = 0, kernelChecksum = 0;
+		
+		//Warm up both paths
+		for (int i = 0; i < 3; i++) {
+			legacyChecksum = run_legacy(block, ref, positions, size);
+			kernelChecksum = run_kernel(engine, block, ref, positions, size);
+		}
+		
+		if (Double.compare(legacyChecksum, kernelChecksum) != 0) {
+			System.err.println("Kernel does not match the legacy SAD! (" + legacyChecksum + " != " + kernelChecksum + ")");
+		}
+		
+		long legacyTime = 0, kernelTime = 0;
+		
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			legacyChecksum += run_legacy(block, ref, positions, size);
+			legacyTime += System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			kernelChecksum += run_kernel(engine, block, ref, positions, size);
+			kernelTime += System.nanoTime() - start;
+		}
+		
+		double calls = (double)iterations * CANDIDATES;
+		System.out.println("Block size: " + size + "x" + size + ", candidates: " + (long)calls);
+		System.out.printf("Legacy SAD: %.1f ns/candidate%n", legacyTime / calls);
+		System.out.printf("Kernel SAD: %.1f ns/candidate%n", kernelTime / calls);
+		System.out.printf("Speedup: %.2fx%n", (double)legacyTime / (double)kernelTime);
+	}
+	
+	private static double run_legacy(YCbCrMakroBlock block, PlanarFrame ref, Point[] positions, int size) {
+		double sum = 0;
+		
+		for (Point p : positions) {
+			sum += get_legacy_SAD(new YCbCrMakroBlock(ref, p, size), block);
+		}
+		
+		return sum;
+	}
+	
+	private static double run_kernel(VectorEngine engine, YCbCrMakroBlock block, PlanarFrame ref, Point[] positions, int size) {
+		double sum = 0;
+		Point pos = block.getPosition();
+		
+		for (Point p : positions) {
+			sum += engine.get_SAD_of_planes(ref, p.x, p.y, block.getFrame(), pos.x, pos.y, size);
+		}
+		
+		return sum;
+	}
+	
+	/*
+	 * Purpose: SAD as it was computed before the plane based kernel
+	 * Return Type: double => Equality; The lower the more equal the colors
+	 * Params: YCbCrMakroBlock block1 => First block;
+	 * 			YCbCrMakroBlock block2 => Second block
+	 */
+	private static double get_legacy_SAD(YCbCrMakroBlock block1, YCbCrMakroBlock block2) {
+		int size = block1.getSize();
+		double resY = 0;
+		double resCb = 0;
+		double resCr = 0;
+		double resA = 0;
+		
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				double[] YCbCrCol1 = block1.getReversedSubSampleColor(x, y);
+				double[] YCbCrCol2 = block2.getReversedSubSampleColor(x, y);
+
+				resY += Math.abs(YCbCrCol1[0] - YCbCrCol2[0]);
+				resCb += Math.abs(YCbCrCol1[1] - YCbCrCol2[1]);
+				resCr += Math.abs(YCbCrCol1[2] - YCbCrCol2[2]);
+				resA += Math.abs(YCbCrCol1[3] - YCbCrCol2[3]);
+			}
+		}
+		
+		resY = resY * resY * resY;
+		resCb = resCb * resCb;
+		resCr = resCr * resCr;
+		resA = Math.pow(resA, resA);
+		
+		return (resY + resCb + resCr + resA) / (double)(size * size);
+	}
+	
+	private static PlanarFrame create_random_frame(Random random) {
+		PlanarFrame frame = new PlanarFrame(WIDTH, HEIGHT);
+		random.nextBytes(frame.getLumaPlane());
+		random.nextBytes(frame.getCbPlane());
+		random.nextBytes(frame.getCrPlane());
+		return frame;
+	}
+}
@@ -21,31 +21,89 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 
 package Decoder;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import Main.config;
+import Utils.BitstreamReader;
+import Utils.FrameIndexEntry;
+
 public class DataGrabber {
 	private File cache = null;
 	
+	//Records of a single-file container ({offset, length} of the payload)
+	private FileChannel CONTAINER = null;
+	private MappedByteBuffer MAPPED = null;
+	private int CONTAINER_VERSION = 0;
+	private long[] META_RECORD = null;
+	private long[] START_FRAME_RECORD = null;
+	private ArrayList<long[]> FRAME_RECORDS = new ArrayList<long[]>();
+	private ArrayList<FrameIndexEntry> INDEX = null;
+	
+	public DataGrabber() {}
+	
 	/*
-	 * Purpose: Resolve the deflate the YAVC file
-	 * Return Type: String => Content of the YAVC file (CAN GET REALLY REALLY HUGE; UP TO MAX RAM SIZE)
-	 * Params: File file => YAVC file to be deflated
+	 * Purpose: Open a YAVC file (containers are read in place, ZIP files get deflated)
+	 * Return Type: void
+	 * Params: File file => YAVC file to be opened
 	 */
 	public void slice(File file) {
 		try {
-			ZipInputStream zipIn = new ZipInputStream(new FileInputStream(file));
+			if (is_container(file)) {
+				open_container(file);
+				return;
+			}
+			
+			slice(new FileInputStream(file), new File(file.getAbsolutePath() + ".part"));
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/*
+	 * Purpose: Read a YAVC stream into a cache directory
+	 * Return Type: void
+	 * Params: InputStream in => Stream of the YAVC file (gets closed);
+	 * 			File cacheDirectory => Directory for the deflated parts or the copied container
+	 */
+	public void slice(InputStream in, File cacheDirectory) {
+		try {
+			BufferedInputStream buffered = new BufferedInputStream(in);
+			buffered.mark(4);
+			byte[] magic = buffered.readNBytes(4);
+			buffered.reset();
+			
+			if (is_container_magic(magic)) {
+				cacheDirectory.mkdirs();
+				File copy = new File(cacheDirectory, "stream.yavc");
+				Files.copy(buffered, copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				buffered.close();
+				open_container(copy);
+				return;
+			}
+			
+			ZipInputStream zipIn = new ZipInputStream(buffered);
 			ZipEntry zipEntry = zipIn.getNextEntry();
 			
-			this.cache = new File(file.getAbsolutePath() + ".part");
-			this.cache.mkdir();
+			this.cache = cacheDirectory;
+			this.cache.mkdirs();
 			
 			byte[] buffer = new byte[4096];
 			
@@ -69,7 +127,287 @@ public class DataGrabber {
 		}
 	}
 	
+	private boolean is_container(File file) throws IOException {
+		try (FileInputStream fis = new FileInputStream(file)) {
+			return is_container_magic(fis.readNBytes(4));
+		}
+	}
+	
+	private boolean is_container_magic(byte[] magic) {
+		return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == config.CONTAINER_MAGIC;
+	}
+	
+	/*
+	 * Purpose: Map a single-file container into memory and collect its records
+	 * 			(Uses the frame index if the trailer exists, otherwise all records are scanned)
+	 * Return Type: void
+	 * Params: File file => Container to open
+	 */
+	private void open_container(File file) throws IOException {
+		this.CONTAINER = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		long size = this.CONTAINER.size();
+		
+		//A single mapping can't exceed 2 GB, larger files get a mapping per record
+		if (size <= Integer.MAX_VALUE) {
+			this.MAPPED = this.CONTAINER.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		
+		this.CONTAINER_VERSION = slice(0, 5).get(4) & 0xFF;
+		
+		if (read_index(size)) {
+			return;
+		}
+		
+		long position = 5;
+		
+		while (position < size) {
+			long[] record = read_record_header(position, size);
+			
+			if (record == null) {
+				System.err.println("Container is truncated at " + position + "! > Skip");
+				break;
+			}
+			
+			byte type = (byte)record[2];
+			
+			if (type == config.RECORD_TRAILER) {
+				break;
+			} else if (type == config.RECORD_META) {
+				this.META_RECORD = record;
+			} else if (type == config.RECORD_START_FRAME) {
+				this.START_FRAME_RECORD = record;
+			} else if (type == config.RECORD_FRAME) {
+				this.FRAME_RECORDS.add(record);
+			}
+			
+			position = record[0] + record[1];
+		}
+	}
+	
+	/*
+	 * Purpose: Locate all records through the trailer and the frame index
+	 * Return Type: boolean => true = index was read; false = no (valid) index
+	 * Params: long size => Size of the container
+	 */
+	private boolean read_index(long size) throws IOException {
+		if (size < 5 + config.TRAILER_SIZE) {
+			return false;
+		}
+		
+		ByteBuffer trailer = slice(size - config.TRAILER_SIZE, config.TRAILER_SIZE);
+		
+		if (trailer.get() != config.RECORD_TRAILER || trailer.getInt() != 12) {
+			return false;
+		}
+		
+		trailer.getInt();
+		long indexOffset = trailer.getLong();
+		long[] indexRecord = read_record_header(indexOffset, size);
+		
+		if (indexRecord == null || indexRecord[2] != config.RECORD_INDEX) {
+			System.err.println("Frame index is missing! > Scan records");
+			return false;
+		}
+		
+		byte[] rawIndex = read_record(indexRecord);
+		
+		if (rawIndex == null) {
+			return false;
+		}
+		
+		BitstreamReader in = new BitstreamReader(rawIndex);
+		long[] metaRecord = null;
+		ArrayList<FrameIndexEntry> index = null;
+		
+		//A damaged index must not end the decoding, the records can still be scanned
+		try {
+			metaRecord = read_record_header(in.read_long(), size);
+			index = read_index_entries(in, rawIndex.length, size);
+		} catch (RuntimeException e) {
+			index = null;
+		}
+		
+		if (metaRecord == null || index == null || index.isEmpty() || !index.get(0).isIntra()) {
+			System.err.println("Frame index is damaged! > Scan records");
+			return false;
+		}
+		
+		this.META_RECORD = metaRecord;
+		this.INDEX = index;
+		this.START_FRAME_RECORD = new long[] {index.get(0).getOffset() + 5, index.get(0).getSize() - 5};
+		
+		for (int i = 1; i < index.size(); i++) {
+			this.FRAME_RECORDS.add(new long[] {index.get(i).getOffset() + 5, index.get(i).getSize() - 5});
+		}
+		
+		return true;
+	}
+	
+	/*
+	 * Purpose: Read the entries of the frame index and check them against the container
+	 * Return Type: ArrayList<FrameIndexEntry> => Entries; NULL if an entry lies outside the container
+	 * Params: BitstreamReader in => Reader positioned at the entry count;
+	 * 			int indexLength => Length of the index payload;
+	 * 			long size => Size of the container
+	 */
+	private ArrayList<FrameIndexEntry> read_index_entries(BitstreamReader in, int indexLength, long size) {
+		int count = in.read_varint();
+		
+		//An entry takes at least 11 bytes (offset, size, type and reference count)
+		if (count < 0 || count > (indexLength - in.position()) / 11) {
+			return null;
+		}
+		
+		ArrayList<FrameIndexEntry> index = new ArrayList<FrameIndexEntry>(count);
+		
+		for (int i = 0; i < count; i++) {
+			long offset = in.read_long();
+			int recordSize = in.read_varint();
+			boolean intra = in.read_byte() == 0;
+			int referenceCount = in.read_varint();
+			
+			if (offset < 5 || recordSize < 5 || offset + recordSize > size || referenceCount > indexLength - in.position()) {
+				return null;
+			}
+			
+			int[] references = new int[referenceCount];
+			
+			for (int r = 0; r < references.length; r++) {
+				references[r] = in.read_varint();
+			}
+			
+			//Files without timestamps are presented in frame order
+			index.add(new FrameIndexEntry(offset, recordSize, intra, references, i));
+		}
+		
+		if (in.has_remaining()) {
+			for (FrameIndexEntry entry : index) {
+				entry.setTimestamp(in.read_varint());
+			}
+		}
+		
+		return index;
+	}
+	
+	/*
+	 * Purpose: Read the header of a single record
+	 * Return Type: long[] => {payload offset, payload length, type}; NULL if the record is outside the container
+	 * Params: long offset => Offset of the record;
+	 * 			long size => Size of the container
+	 */
+	private long[] read_record_header(long offset, long size) throws IOException {
+		if (offset < 5 || offset + 5 > size) {
+			return null;
+		}
+		
+		ByteBuffer header = slice(offset, 5);
+		byte type = header.get();
+		long length = header.getInt() & 0xFFFFFFFFL;
+		return offset + 5 + length > size ? null : new long[] {offset + 5, length, type};
+	}
+	
+	/*
+	 * Purpose: Get the amount of frames stored in the container (including the start frame)
+	 * Return Type: int => Amount of frames; 0 for ZIP files
+	 * Params: void
+	 */
+	public int get_frame_count() {
+		if (this.INDEX != null) {
+			return this.INDEX.size();
+		}
+		
+		return this.START_FRAME_RECORD == null ? 0 : this.FRAME_RECORDS.size() + 1;
+	}
+	
+	/*
+	 * Purpose: Get the frame index of the container (start frame = entry 0)
+	 * Return Type: ArrayList<FrameIndexEntry> => Index; NULL if the file has no index
+	 * Params: void
+	 */
+	public ArrayList<FrameIndexEntry> get_frame_index() {
+		return this.INDEX;
+	}
+	
+	/*
+	 * Purpose: Get a view of a part of the container (zero-copy)
+	 * Return Type: ByteBuffer => View from position 0 to length
+	 * Params: long offset => Offset in the container;
+	 * 			int length => Number of bytes
+	 */
+	private ByteBuffer slice(long offset, int length) throws IOException {
+		if (this.MAPPED != null) {
+			return this.MAPPED.slice((int)offset, length);
+		}
+		
+		return this.CONTAINER.map(FileChannel.MapMode.READ_ONLY, offset, length);
+	}
+	
+	private byte[] read_record(long[] record) {
+		Inflater inflater = new Inflater();
+		
+		try {
+			ByteBuffer payload = slice(record[0], (int)record[1]);
+			int rawLength = record[1] < 4 ? -1 : payload.getInt();
+			
+			if (rawLength < 0) {
+				System.err.println("Record at " + record[0] + " is corrupted! > Skip");
+				return null;
+			}
+			
+			byte[] raw = new byte[rawLength];
+			inflater.setInput(payload);
+			
+			for (int length = 0; length < raw.length; ) {
+				int inflated = inflater.inflate(raw, length, raw.length - length);
+				
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+					System.err.println("Record at " + record[0] + " is corrupted! > Skip");
+					return null;
+				}
+				
+				length += inflated;
+			}
+			
+			return raw;
+		} catch (IOException | DataFormatException e) {
+			e.printStackTrace();
+		} finally {
+			inflater.end();
+		}
+		
+		return null;
+	}
+	
+	/*
+	 * Purpose: Release the opened container
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void close() {
+		if (this.CONTAINER == null) {
+			return;
+		}
+		
+		//The mapping stays valid until it is collected, the slices handed out don't break
+		this.MAPPED = null;
+		
+		try {
+			this.CONTAINER.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
 	public String get_metadata() {
+		if (this.CONTAINER != null) {
+			if (this.META_RECORD == null) {
+				System.err.println("No meta data found! > Abort process");
+				return null;
+			}
+			
+			return new String(read_record(this.META_RECORD), StandardCharsets.UTF_8);
+		}
+		
 		String content = null;
 		File md_file = new File(this.cache.getAbsolutePath() + "/META.DESC");
 		
@@ -123,4 +461,66 @@ public class DataGrabber {
 		
 		return content;
 	}
+	
+	/*
+	 * Purpose: Get the raw bytes of the start frame (format version 2)
+	 * Return Type: byte[] => Content of the start frame (NULL on error)
+	 * Params: void
+	 */
+	public byte[] get_start_frame_data() {
+		if (this.CONTAINER != null) {
+			return this.START_FRAME_RECORD == null ? null : read_record(this.START_FRAME_RECORD);
+		}
+		
+		return read_part("SF.YAVCF");
+	}
+	
+	/*
+	 * Purpose: Get the data of a frame (format version 2 and later)
+	 * Return Type: ByteBuffer => Content of the frame (a view of the mapped container if possible; NULL if the frame does not exist)
+	 * Params: int frameNumber => Number of the frame
+	 */
+	public ByteBuffer get_frame_data(int frameNumber) {
+		if (this.CONTAINER != null) {
+			if (frameNumber < 0 || frameNumber >= this.FRAME_RECORDS.size()) {
+				System.err.println("No frame with the number " + frameNumber + " found!");
+				return null;
+			}
+			
+			long[] record = this.FRAME_RECORDS.get(frameNumber);
+			
+			//Entropy coded frames (format version 4) are not deflated
+			if (this.CONTAINER_VERSION < 4) {
+				byte[] raw = read_record(record);
+				return raw == null ? null : ByteBuffer.wrap(raw);
+			}
+			
+			try {
+				return slice(record[0], (int)record[1]);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+		
+		byte[] part = read_part("F_" + frameNumber + ".YAVCF");
+		return part == null ? null : ByteBuffer.wrap(part);
+	}
+	
+	private byte[] read_part(String name) {
+		File part = new File(this.cache.getAbsolutePath() + "/" + name);
+		
+		if (!part.exists()) {
+			System.err.println("No part " + name + " found!");
+			return null;
+		}
+		
+		try {
+			return Files.readAllBytes(Path.of(part.getAbsolutePath()));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		return null;
+	}
 }
@@ -21,18 +21,22 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 
 package Decoder;
 
-import java.awt.AlphaComposite;
 import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.Point;
-import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import Encoder.MakroBlockEngine;
 import Main.config;
+import Utils.BitstreamReader;
+import Utils.CodecExecutor;
 import Utils.ColorManager;
 import Utils.DCTObject;
+import Utils.EntropyDecoder;
 import Utils.PixelRaster;
+import Utils.PlanarFrame;
+import Utils.TransformMode;
 import Utils.Vector;
 import Utils.YCbCrMakroBlock;
 
@@ -43,39 +47,97 @@ public class DataPipeEngine {
 	private Dimension DIMENSION = null;
 	
 	private int MAX_FRAMES = 0;
-	private String CURRENT_FRAME_DATA = "";
+	private int FORMAT_VERSION = 1;
+	private int FRAME_RATE_NUMERATOR = config.DEFAULT_FRAME_RATE_NUMERATOR;
+	private int FRAME_RATE_DENOMINATOR = config.DEFAULT_FRAME_RATE_DENOMINATOR;
+	private LegacyFrameParser LEGACY_PARSER = new LegacyFrameParser();
+	private PlanarFrame BLOCK_PLANES = null;
+	private ArrayList<DCTObject> BLOCKS = new ArrayList<DCTObject>();
+	private int BLOCK_COUNT = 0;
+	private ArrayList<Vector> CURRENT_VECTORS = null;
 	
 	public DataPipeEngine(DataGrabber grabber) {
 		this.GRABBER = grabber;
 		scrape_meta_data(grabber.get_metadata());
 		
-		System.out.println("META: " + DIMENSION + ", " + MAX_FRAMES);
+		//Streamed encodes don't know their length up front (FC[0]), the container does
+		if (this.MAX_FRAMES <= 0) {
+			this.MAX_FRAMES = grabber.get_frame_count();
+		}
+		
+		this.BLOCK_PLANES = new PlanarFrame(this.DIMENSION.width, this.DIMENSION.height);
+		
+		System.out.println("META: " + DIMENSION + ", " + MAX_FRAMES + ", " + this.MAKRO_BLOCK_ENGINE.get_transform_mode() + ", QP " + this.MAKRO_BLOCK_ENGINE.get_quantization_parameter() + ", FV " + this.FORMAT_VERSION + ", " + this.FRAME_RATE_NUMERATOR + ":" + this.FRAME_RATE_DENOMINATOR + " fps");
 	}
 	
 	/*
-	 * Purpose: Get the first frame of the video and build it (Has no vectors)
-	 * Return Type: BufferedImage => Built image
+	 * Purpose: Create a frame buffer with the dimension of the video (e.g. for the filtered output)
+	 * Return Type: PixelRaster => Empty frame buffer
 	 * Params: void
 	 */
-	public BufferedImage scrape_main_image(String startFrameContent) {
-		BufferedImage render = new BufferedImage(this.DIMENSION.width, this.DIMENSION.height, BufferedImage.TYPE_INT_ARGB);
-		String[] stepInfo = startFrameContent.split("\\.");
-		int x = 0, y = 0;
-		
-		for (String s : stepInfo) {
-			if (x >= this.DIMENSION.width) {
-				x = 0;
-				y++;
-			}
+	public PixelRaster create_frame_buffer() {
+		return new PixelRaster(this.DIMENSION.width, this.DIMENSION.height);
+	}
+	
+	/*
+	 * Purpose: Create the reference ring for decoding this video
+	 * Return Type: ReferenceFrameRing => Empty ring with room for config.MAX_BACK_REF references
+	 * Params: void
+	 */
+	public ReferenceFrameRing create_reference_ring() {
+		return new ReferenceFrameRing(config.MAX_BACK_REF, this.DIMENSION.width, this.DIMENSION.height);
+	}
+	
+	/*
+	 * Purpose: Get the first frame of the video and build it (Has no vectors)
+	 * Return Type: boolean => true = decoded; false = start frame is missing or incomplete
+	 * Params: PixelRaster target => Frame buffer to decode into (e.g. ReferenceFrameRing.next_frame_buffer())
+	 */
+	public boolean scrape_main_image(PixelRaster target) {
+		if (this.FORMAT_VERSION < 2) {
+			String content = this.GRABBER.get_start_frame();
 			
-			if (y >= this.DIMENSION.height) {
-				continue;
+			if (content == null) {
+				System.err.println("Start frame is missing! > Abort");
+				return false;
 			}
-
-			render.setRGB(x++, y, Integer.parseInt(s));
+			
+			scrape_main_image(content, target);
+			return true;
+		}
+		
+		byte[] rgb = this.GRABBER.get_start_frame_data();
+		
+		if (rgb == null || rgb.length < this.DIMENSION.width * this.DIMENSION.height * 3) {
+			System.err.println("Start frame is incomplete! > Abort");
+			return false;
+		}
+		
+		int[] argb = target.getData();
+		
+		for (int i = 0, index = 0; index < argb.length; index++) {
+			argb[index] = 0xFF000000 | ((rgb[i++] & 0xFF) << 16) | ((rgb[i++] & 0xFF) << 8) | (rgb[i++] & 0xFF);
 		}
 		
-		return render;
+		return true;
+	}
+	
+	/*
+	 * Purpose: Build the first frame of a format version 1 file
+	 * Return Type: void
+	 * Params: String startFrameContent => Content of the start frame ("ARGB." per pixel);
+	 * 			PixelRaster target => Frame buffer to decode into
+	 */
+	private void scrape_main_image(String startFrameContent, PixelRaster target) {
+		int[] argb = target.getData();
+		int index = 0, start = 0;
+		
+		while (start < startFrameContent.length() && index < argb.length) {
+			int end = startFrameContent.indexOf('.', start);
+			end = end == -1 ? startFrameContent.length() : end;
+			argb[index++] = Integer.parseInt(startFrameContent, start, end, 10);
+			start = end + 1;
+		}
 	}
 	
 	/*
@@ -88,233 +150,373 @@ public class DataPipeEngine {
 	}
 	
 	/*
-	 * Purpose: Build the next frame based on the FRAME_START_POSITION
-	 * Return Type: BufferedImage => Built image
-	 * Params: int frameNumber => Number of frame to scrape
+	 * Purpose: Decode the next frame directly into the next buffer of the reference ring:
+	 * 			The previous frame gets copied, the differences and the vectors are drawn over it.
+	 * 			On success the frame becomes the newest reference.
+	 * Return Type: boolean => true = decoded; false = frame is missing
+	 * Params: int frameNumber => Number of frame to scrape;
+	 * 			ReferenceFrameRing references => Reference frames (empty = start from an empty frame, e.g. at intra frames)
 	 */
-	public BufferedImage scrape_next_frame(int frameNumber) {
-		BufferedImage render = new BufferedImage(this.DIMENSION.width, this.DIMENSION.height, BufferedImage.TYPE_INT_ARGB);
-		this.CURRENT_FRAME_DATA = this.GRABBER.get_frame(frameNumber);
-
-		if (this.CURRENT_FRAME_DATA == null) {
-			return null;
+	public boolean build_next_frame(int frameNumber, ReferenceFrameRing references) {
+		PixelRaster target = references.next_frame_buffer();
+		PixelRaster prevFrame = references.get_frame(1);
+		
+		if (prevFrame == null) {
+			Arrays.fill(target.getData(), 0);
+		} else {
+			System.arraycopy(prevFrame.getData(), 0, target.getData(), 0, target.getData().length);
 		}
 		
-		ArrayList<YCbCrMakroBlock> blocks = new ArrayList<YCbCrMakroBlock>();
+		boolean decoded = false;
 		
-		String[] splitVecs = this.CURRENT_FRAME_DATA.split(Character.toString(config.V_DEF_S));
-		splitVecs[0] = splitVecs[0].replaceFirst(Character.toString(config.DCT_DEF_S), "");
+		if (this.FORMAT_VERSION >= 4) {
+			decoded = scrape_entropy_coded_frame(frameNumber, target);
+		} else if (this.FORMAT_VERSION >= 2) {
+			decoded = scrape_binary_frame(frameNumber, target);
+		} else {
+			decoded = scrape_legacy_frame(frameNumber, target);
+		}
 		
-		if (splitVecs.length <= 0) {
-			return render;
+		if (!decoded) {
+			return false;
 		}
 		
-		String[] matrices = splitVecs[0].split(Character.toString(config.DCT_POS_END_DEF));
+		draw_vectors(this.CURRENT_VECTORS, references, target);
+		references.commit();
+		return true;
+	}
+	
+	/*
+	 * Purpose: Build the next frame of a format version 1 file (see LegacyFrameParser for the layout)
+	 * Return Type: boolean => true = decoded; false = frame does not exist
+	 * Params: int frameNumber => Number of frame to scrape;
+	 * 			PixelRaster target => Frame buffer to draw the differences on
+	 */
+	private boolean scrape_legacy_frame(int frameNumber, PixelRaster target) {
+		String content = this.GRABBER.get_frame(frameNumber);
+		this.CURRENT_VECTORS = null;
+		this.BLOCK_COUNT = 0;
 		
-		if (matrices.length <= 1) {
-			return render;
+		if (content == null) {
+			return false;
 		}
 		
-		for (String matrix : matrices) {
-			int YEnd = matrix.indexOf(config.DCT_Y_END_DEF);
-			int CbEnd = matrix.indexOf(config.DCT_CB_END_DEF);
-			int CrEnd = matrix.indexOf(config.DCT_CR_END_DEF);
-			
-			String YComp = matrix.substring(0, YEnd);
-			String CbComp = matrix.substring(YEnd + 1, CbEnd);
-			String CrComp = matrix.substring(CbEnd + 1, CrEnd);
-			String Pos = matrix.substring(CrEnd + 1, matrix.length());
-
-			String[] YCoef = YComp.split(Character.toString(config.DCT_MATRIX_NL_DEF));
-			String[] CbCoef = CbComp.split(Character.toString(config.DCT_MATRIX_NL_DEF));
-			String[] CrCoef = CrComp.split(Character.toString(config.DCT_MATRIX_NL_DEF));
-			
-			double[][] YCols = new double[YCoef.length][YCoef.length];
-			double[][] CbCols = new double[CbCoef.length][CbCoef.length];
-			double[][] CrCols = new double[CrCoef.length][CrCoef.length];
-			
-			//Luma handling
-			for (int y = 0; y < YCoef.length; y++) {
-				for (int x = 0; x < YCoef[y].length(); x++) {
-					char t = YCoef[y].charAt(x);
-					int res = shift_DCT_back(t);
-
-					YCols[y][x] = res;
-				}
-			}
-			
-			//Chroma handling
-			for (int y = 0; y < CbCoef.length && y < CrCoef.length; y++) {
-				for (int x = 0; x < CbCoef.length && x < CrCoef.length; x++) {
-					char cb = CbCoef[y].charAt(x);
-					char cr = CrCoef[y].charAt(x);
-					
-					int valCb = shift_DCT_back(cb);
-					int valCr = shift_DCT_back(cr);
-					
-					CbCols[y][x] = valCb;
-					CrCols[y][x] = valCr;
-				}
-			}
-			
-			Point pos = new Point(0, 0);
+		this.LEGACY_PARSER.reset(content);
+		
+		for (DCTObject obj = this.LEGACY_PARSER.next_block(); obj != null; obj = this.LEGACY_PARSER.next_block()) {
+			DCTObject block = next_block(obj.getY().length, obj.getCbDCT().length, obj.getPosition());
+			copy_matrix(obj.getY(), block.getY());
+			copy_matrix(obj.getCbDCT(), block.getCbDCT());
+			copy_matrix(obj.getCrDCT(), block.getCrDCT());
+		}
+		
+		this.CURRENT_VECTORS = this.LEGACY_PARSER.read_vectors();
+		
+		//Version 1 decoders ignored the differences of frames with a single block
+		if (this.BLOCK_COUNT > 1) {
+			reconstruct_blocks(target);
+		}
+		
+		return true;
+	}
+	
+	/*
+	 * Purpose: Build the next frame of a format version 4 or 5 file (see OutputWriter.serialize_frame() for the layout)
+	 * Return Type: boolean => true = decoded; false = frame does not exist
+	 * Params: int frameNumber => Number of frame to scrape;
+	 * 			PixelRaster target => Frame buffer to draw the differences on
+	 */
+	private boolean scrape_entropy_coded_frame(int frameNumber, PixelRaster target) {
+		ByteBuffer data = this.GRABBER.get_frame_data(frameNumber);
+		this.CURRENT_VECTORS = null;
+		this.BLOCK_COUNT = 0;
+		
+		if (data == null) {
+			return false;
+		}
+		
+		EntropyDecoder in = new EntropyDecoder(data);
+		
+		int blockCount = in.decode_count();
+		int lumaSize = in.decode_count();
+		int chromaSize = in.decode_count();
+		
+		for (int i = 0; i < blockCount; i++) {
+			DCTObject block = next_block(lumaSize, chromaSize, in.decode_block_position());
 			
-			if (Pos.length() > 2 || Pos.length() < 2) {
-				System.err.println("Position longer than 2? Position available?");
-			} else {
-				int x = (int)(Pos.charAt(0)) - config.RESERVED_TABLE_SIZE;
-				int y = (int)(Pos.charAt(1)) - config.RESERVED_TABLE_SIZE;
-				pos.setLocation(x, y);
+			if (!scrape_coefficients(in, block.getY(), true) || !scrape_coefficients(in, block.getCbDCT(), false) || !scrape_coefficients(in, block.getCrDCT(), false)) {
+				return false;
 			}
-			
-			blocks.add(this.MAKRO_BLOCK_ENGINE.apply_IDCT(new DCTObject(YCols, CbCols, CrCols, pos)));
 		}
 		
-		for (YCbCrMakroBlock b : blocks) {
-			Point p = b.getPosition();
+		if (in.decode_flag()) {
+			int vecCount = in.decode_count();
+			this.CURRENT_VECTORS = new ArrayList<Vector>(vecCount);
 			
-			for (int y = 0; y < b.getSize(); y++) {
-				if (p.y + y >= this.DIMENSION.height) {
-					continue;
-				}
-				
-				for (int x = 0; x < b.getSize(); x++) {
-					if (p.x + x >= this.DIMENSION.width) {
-						continue;
-					}
-					
-					render.setRGB(p.x + x, p.y + y, this.COLOR_MANAGER.convert_YCbCr_to_RGB(b.getReversedSubSampleColor(x, y)).getRGB());
-				}
+			for (int i = 0; i < vecCount; i++) {
+				this.CURRENT_VECTORS.add(in.decode_vector());
 			}
 		}
-		System.out.println("Blocks: " + blocks.size());
-		return render;
+		
+		reconstruct_blocks(target);
+		return true;
 	}
 	
-	private int shift_DCT_back(char val) {
-		if (((val >> 14) & 0x1) == 1) {
-			return -1 * (((int)val - config.RESERVED_TABLE_SIZE) & 0xFFF);
+	private boolean scrape_coefficients(EntropyDecoder in, int[][] matrix, boolean luma) {
+		if (this.FORMAT_VERSION >= 5) {
+			return in.decode_block(luma, matrix);
+		}
+		
+		for (int y = 0, index = 0; y < matrix.length; y++) {
+			for (int x = 0; x < matrix.length; x++, index++) {
+				matrix[y][x] = in.decode_coefficient(luma, index);
+			}
 		}
 		
-		return (((int)val - config.RESERVED_TABLE_SIZE) & 0xFFF);
+		return true;
 	}
 	
 	/*
-	 * Purpose: Get the vectors of the current frame
-	 * Return Type: ArrayList<Vector> => Found vectors
-	 * Params: int frameNumber => frame number for the vectors
+	 * Purpose: Build the next frame of a format version 2 or 3 file (varints)
+	 * Return Type: boolean => true = decoded; false = frame does not exist
+	 * Params: int frameNumber => Number of frame to scrape;
+	 * 			PixelRaster target => Frame buffer to draw the differences on
 	 */
-	public ArrayList<Vector> scrape_vectors(int frameNumber) {
-		ArrayList<Vector> vecs = new ArrayList<Vector>();
+	private boolean scrape_binary_frame(int frameNumber, PixelRaster target) {
+		ByteBuffer data = this.GRABBER.get_frame_data(frameNumber);
+		this.CURRENT_VECTORS = null;
+		this.BLOCK_COUNT = 0;
 		
-		if (this.CURRENT_FRAME_DATA == null) {
-			System.err.println("No more data! > abort");
-			return null;
+		if (data == null) {
+			return false;
 		}
 		
-		int start = this.CURRENT_FRAME_DATA.indexOf(config.V_DEF_S);
+		BitstreamReader in = new BitstreamReader(data);
 		
-		if (start == -1) {
-			System.err.println("No Vector indicies found! (" + frameNumber + ")");
-			return null;
+		int blockCount = in.read_varint();
+		int lumaSize = in.read_varint();
+		int chromaSize = in.read_varint();
+		
+		for (int i = 0; i < blockCount; i++) {
+			int x = in.read_varint();
+			int y = in.read_varint();
+			DCTObject block = next_block(lumaSize, chromaSize, new Point(x, y));
+			scrape_coefficients(in, block.getY());
+			scrape_coefficients(in, block.getCbDCT());
+			scrape_coefficients(in, block.getCrDCT());
 		}
 		
-		int vecCount = ((int)this.CURRENT_FRAME_DATA.charAt(start + 1) << 16) | (int)this.CURRENT_FRAME_DATA.charAt(start + 2);
-		String data = this.CURRENT_FRAME_DATA.substring(start + 3, this.CURRENT_FRAME_DATA.length());
-
-		if (data == null) {
-			System.err.println("MISSING VECTOR FOUND!!! (F_" + frameNumber + ")");
-			return null;
+		if (in.read_byte() == 1) {
+			int vecCount = in.read_varint();
+			this.CURRENT_VECTORS = new ArrayList<Vector>(vecCount);
+			
+			for (int i = 0; i < vecCount; i++) {
+				int x = in.read_signed_varint();
+				int y = in.read_signed_varint();
+				int spanX = in.read_signed_varint();
+				int spanY = in.read_signed_varint();
+				int ref = in.read_byte();
+				int size = in.read_byte();
+				
+				this.CURRENT_VECTORS.add(new Vector(new Point(x, y), spanX, spanY, ref, size));
+			}
 		}
 		
-		int vecNum = 0;
+		reconstruct_blocks(target);
+		return true;
+	}
+	
+	private void scrape_coefficients(BitstreamReader in, int[][] matrix) {
+		for (int y = 0; y < matrix.length; y++) {
+			for (int x = 0; x < matrix.length; x++) {
+				matrix[y][x] = in.read_signed_varint();
+			}
+		}
+	}
+	
+	/*
+	 * Purpose: Get the next block of the frame from the block pool (the coefficient matrices are reused)
+	 * Return Type: DCTObject => Block with matrices of the requested sizes
+	 * Params: int lumaSize => Size of the Y matrix;
+	 * 			int chromaSize => Size of the Cb and Cr matrices;
+	 * 			Point pos => Position of the block
+	 */
+	private DCTObject next_block(int lumaSize, int chromaSize, Point pos) {
+		if (this.BLOCK_COUNT == this.BLOCKS.size()) {
+			this.BLOCKS.add(new DCTObject(new int[lumaSize][lumaSize], new int[chromaSize][chromaSize], new int[chromaSize][chromaSize], pos));
+			return this.BLOCKS.get(this.BLOCK_COUNT++);
+		}
 		
-		//+4 since vectors are composed of 4 chars
-		for (int i = 0; i < data.length(); i += 5, vecNum++) {
-			char sPointX = data.charAt(i);
-			char sPointY = data.charAt(i + 1);
-			char vSpanX = data.charAt(i + 2);
-			char vSpanY = data.charAt(i + 3);
-			char info = data.charAt(i + 4);
-			
-			int x = ((int)sPointX) - config.RESERVED_TABLE_SIZE;
-			int y = ((int)sPointY) - config.RESERVED_TABLE_SIZE;
-			int spanX = shift_vec_span_back(vSpanX);
-			int spanY = shift_vec_span_back(vSpanY);
-			int ref = (((((int)info) - config.RESERVED_TABLE_SIZE) >> 8) & 0xFF);
-			int size = (((int)info) - config.RESERVED_TABLE_SIZE) & 0xFF;
-			
-			vecs.add(new Vector(new Point(x, y), spanX, spanY, ref, size));
+		DCTObject block = this.BLOCKS.get(this.BLOCK_COUNT++);
+		block.setPosition(pos);
+		
+		if (block.getY().length != lumaSize) {
+			block.setY(new int[lumaSize][lumaSize]);
 		}
 		
-		if (vecNum < vecCount) {
-			System.out.println(vecNum);
-			System.out.println("Less vectors than there should be..");
+		if (block.getCbDCT().length != chromaSize) {
+			block.setCbDCT(new int[chromaSize][chromaSize]);
+			block.setCrDCT(new int[chromaSize][chromaSize]);
 		}
 		
-		return vecs;
+		return block;
 	}
 	
-	private int shift_vec_span_back(char span) {
-		if (((span >> 14) & 0x1) == 1) {
-			return (-1 * (((int)span & 0xFFF) - config.RESERVED_TABLE_SIZE));
+	private void copy_matrix(int[][] source, int[][] target) {
+		for (int y = 0; y < source.length; y++) {
+			System.arraycopy(source[y], 0, target[y], 0, source[y].length);
+		}
+	}
+	
+	/*
+	 * Purpose: Run the IDCT of all blocks of the frame and draw them into the frame.
+	 * 			Blocks on the block grid are reconstructed in parallel row bands; inside a band
+	 * 			the blocks keep the order of the file, so overlaps resolve like in a serial decode.
+	 * Return Type: void
+	 * Params: PixelRaster target => Frame buffer to draw on
+	 */
+	private void reconstruct_blocks(PixelRaster target) {
+		if (this.BLOCK_COUNT == 0) {
+			return;
 		}
 		
-		return ((int)span) - config.RESERVED_TABLE_SIZE;
+		int size = this.BLOCKS.get(0).getSize();
+		
+		for (int i = 0; i < this.BLOCK_COUNT; i++) {
+			Point p = this.BLOCKS.get(i).getPosition();
+			
+			//A block off the grid could touch two bands
+			if (p.x < 0 || p.y < 0 || p.y % size != 0) {
+				reconstruct_band(target, Integer.MIN_VALUE, Integer.MAX_VALUE);
+				return;
+			}
+		}
+		
+		int blockRows = (target.getHeight() + size - 1) / size;
+		CodecExecutor.run_in_bands(blockRows, config.DECODER_BAND_ROWS / size, (start, end) -> {
+			reconstruct_band(target, start * size, end * size);
+		});
 	}
 	
 	/*
-	 * Purpose: Composite the vectors, differences and previous frame
-	 * Return Type: BufferedImage => Composited image
-	 * Params: ArrayList<Vector> vecs => Vectors in the diffs;
-	 * 			BufferedImage prevImg => Previous frame;
-	 * 			BufferedImage currImg => Current frame (differences)
+	 * Purpose: Reconstruct the blocks that start in a range of rows (first all IDCTs, then all pixels; like a serial decode)
+	 * Return Type: void
+	 * Params: PixelRaster target => Frame buffer to draw on;
+	 * 			int startRow => First row of the band;
+	 * 			int endRow => Row after the band
 	 */
-	public BufferedImage build_frame(ArrayList<Vector> vecs, ArrayList<BufferedImage> referenceImages, BufferedImage prevImg, BufferedImage currImg) {
-		BufferedImage render = new BufferedImage(prevImg.getWidth(), prevImg.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		BufferedImage vectors = new BufferedImage(prevImg.getWidth(), prevImg.getHeight(), BufferedImage.TYPE_INT_ARGB);
+	private void reconstruct_band(PixelRaster target, int startRow, int endRow) {
+		ArrayList<YCbCrMakroBlock> blocks = new ArrayList<YCbCrMakroBlock>();
 		
-		if (vecs != null) {
-			ArrayList<PixelRaster> rasterSet = new ArrayList<PixelRaster>();
+		for (int i = 0; i < this.BLOCK_COUNT; i++) {
+			DCTObject obj = this.BLOCKS.get(i);
 			
-			for (int i = 0; i < referenceImages.size(); i++) {
-				rasterSet.add(new PixelRaster(referenceImages.get(i)));
+			if (obj.getPosition().y >= startRow && obj.getPosition().y < endRow) {
+				blocks.add(this.MAKRO_BLOCK_ENGINE.apply_IDCT(obj, this.BLOCK_PLANES));
 			}
+		}
+		
+		render_blocks(blocks, target);
+	}
+	
+	/*
+	 * Purpose: Draw the reconstructed blocks into the frame
+	 * Return Type: void
+	 * Params: ArrayList<YCbCrMakroBlock> blocks => Reconstructed blocks;
+	 * 			PixelRaster target => Frame buffer to draw on
+	 */
+	private void render_blocks(ArrayList<YCbCrMakroBlock> blocks, PixelRaster target) {
+		int[] argb = target.getData();
+		int width = target.getWidth();
+		int height = target.getHeight();
+		
+		for (YCbCrMakroBlock b : blocks) {
+			Point p = b.getPosition();
 			
-			for (Vector vec : vecs) {
-				PixelRaster ref = rasterSet.get(referenceImages.size() - vec.getReferenceDrawback());
-				YCbCrMakroBlock block = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(vec.getStartingPoint(), ref, vec.getReferenceSize(), null);
+			for (int y = 0; y < b.getSize(); y++) {
+				if (p.y + y >= height) {
+					continue;
+				}
 				
-				for (int y = 0; y < block.getSize(); y++) {
-					for (int x = 0; x < block.getSize(); x++) {
-						int vecEndX = vec.getStartingPoint().x + vec.getSpanX();
-						int vecEndY = vec.getStartingPoint().y + vec.getSpanY();
-						
-						if (vecEndX + x >= render.getWidth()
-							|| vecEndY + y >= render.getHeight()
-							|| vecEndX + x < 0 || vecEndY + y < 0) {
-//							System.err.println("Out of boundaries!");
-							continue;
-						}
-						
-						if (block.getAVal(x, y) == 255) { //ASCII for YAVC
-							continue;
-						}
-						
-						vectors.setRGB(vecEndX + x, vecEndY + y, this.COLOR_MANAGER.convert_YCbCr_to_RGB(block.getReversedSubSampleColor(x, y)).getRGB());
+				for (int x = 0; x < b.getSize(); x++) {
+					if (p.x + x >= width) {
+						continue;
 					}
+					
+					argb[(p.y + y) * width + p.x + x] = this.COLOR_MANAGER.convert_YCbCr_to_ARGB(b.getYVal(x, y), b.getCbVal(x, y), b.getCrVal(x, y));
 				}
 			}
 		}
+	}
+	
+	/*
+	 * Purpose: Get the vectors of the current frame
+	 * Return Type: ArrayList<Vector> => Found vectors
+	 * Params: int frameNumber => frame number for the vectors
+	 */
+	public ArrayList<Vector> scrape_vectors(int frameNumber) {
+		//Vectors are read together with the frame
+		return this.CURRENT_VECTORS;
+	}
+	
+	/*
+	 * Purpose: Draw the blocks the vectors point to over the frame.
+	 * 			Every row band walks all vectors in file order and only writes its own rows,
+	 * 			so overlapping destinations end up like in a serial decode.
+	 * Return Type: void
+	 * Params: ArrayList<Vector> vecs => Vectors of the frame (NULL = no vectors);
+	 * 			ReferenceFrameRing references => Reference frames;
+	 * 			PixelRaster target => Frame buffer to draw on
+	 */
+	private void draw_vectors(ArrayList<Vector> vecs, ReferenceFrameRing references, PixelRaster target) {
+		if (vecs == null) {
+			return;
+		}
 		
-		Graphics2D g2d = render.createGraphics();
-		g2d.drawImage(prevImg, 0, 0, prevImg.getWidth(), prevImg.getHeight(), null, null);
-		g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
-		g2d.drawImage(currImg, 0, 0, currImg.getWidth(), currImg.getHeight(), null, null);
-		g2d.drawImage(vectors, 0, 0, vectors.getWidth(), vectors.getHeight(), null, null);
-		g2d.dispose();
+		//Convert the used references up front, the bands only read them
+		for (Vector vec : vecs) {
+			if (references.get_planar_frame(vec.getReferenceDrawback()) == null) {
+				System.err.println("Vector refers to missing frame (" + vec.getReferenceDrawback() + ")! > Skip");
+			}
+		}
+		
+		CodecExecutor.run_in_bands(target.getHeight(), config.DECODER_BAND_ROWS, (start, end) -> {
+			draw_vectors(vecs, references, target, start, end);
+		});
+	}
+	
+	private void draw_vectors(ArrayList<Vector> vecs, ReferenceFrameRing references, PixelRaster target, int startRow, int endRow) {
+		int[] argb = target.getData();
+		int width = target.getWidth();
+		YCbCrMakroBlock block = null;
 		
-		return render;
+		for (Vector vec : vecs) {
+			int vecEndX = vec.getStartingPoint().x + vec.getSpanX();
+			int vecEndY = vec.getStartingPoint().y + vec.getSpanY();
+			int firstRow = Math.max(startRow - vecEndY, 0);
+			int lastRow = Math.min(endRow - vecEndY, vec.getReferenceSize());
+			PlanarFrame reference = references.get_planar_frame(vec.getReferenceDrawback());
+			
+			if (firstRow >= lastRow || reference == null) {
+				continue;
+			}
+			
+			block = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(vec.getStartingPoint(), reference, vec.getReferenceSize(), block);
+			
+			for (int y = firstRow; y < lastRow; y++) {
+				for (int x = 0; x < block.getSize(); x++) {
+					if (vecEndX + x >= width || vecEndX + x < 0) {
+						continue;
+					}
+					
+					if (block.getAVal(x, y) == 255) { //ASCII for YAVC
+						continue;
+					}
+					
+					argb[(vecEndY + y) * width + vecEndX + x] = this.COLOR_MANAGER.convert_YCbCr_to_ARGB(block.getYVal(x, y), block.getCbVal(x, y), block.getCrVal(x, y));
+				}
+			}
+		}
 	}
 	
 	/*
@@ -350,9 +552,66 @@ public class DataPipeEngine {
 		}
 		
 		this.MAX_FRAMES = Integer.parseInt(rawFC.toString());
+		
+		//Files without a transform mode were written with the DCT-II
+		String rawTM = scrape_meta_value(metaFileContent, "TM");
+		TransformMode mode = rawTM == null ? TransformMode.DCT : TransformMode.valueOf(rawTM);
+		
+		//Files without a QP store raw luma and unquantized chroma (QP 4 => step of 1.0)
+		String rawQP = scrape_meta_value(metaFileContent, "QP");
+		this.MAKRO_BLOCK_ENGINE.set_quantization_parameter(rawQP == null ? 4 : Integer.parseInt(rawQP));
+		this.MAKRO_BLOCK_ENGINE.set_luma_transform(rawQP != null);
+		
+		this.MAKRO_BLOCK_ENGINE.set_transform_mode(mode);
+		
+		//Files without a format version use the UTF-8 char layout
+		String rawFV = scrape_meta_value(metaFileContent, "FV");
+		this.FORMAT_VERSION = rawFV == null ? 1 : Integer.parseInt(rawFV);
+		
+		if (this.FORMAT_VERSION > config.FORMAT_VERSION) {
+			System.err.println("Format version " + this.FORMAT_VERSION + " is newer than the decoder (" + config.FORMAT_VERSION + ")! > Abort");
+			throw new IllegalStateException("Unsupported format version " + this.FORMAT_VERSION);
+		}
+		
+		//Files without a frame rate get the default one
+		String rawFR = scrape_meta_value(metaFileContent, "FR");
+		String[] rate = rawFR == null ? new String[0] : rawFR.split(":");
+		
+		if (rate.length == 2 && Integer.parseInt(rate[0]) > 0 && Integer.parseInt(rate[1]) > 0) {
+			this.FRAME_RATE_NUMERATOR = Integer.parseInt(rate[0]);
+			this.FRAME_RATE_DENOMINATOR = Integer.parseInt(rate[1]);
+		}
+	}
+	
+	/*
+	 * Purpose: Get the value of an optional entry in the Metadata
+	 * Return Type: String => Value of the entry; null if the entry does not exist
+	 * Params: String metaFileContent => Content of the Metafile;
+	 * 			String key => Key of the entry (e.g. "QP")
+	 */
+	private String scrape_meta_value(String metaFileContent, String key) {
+		int start = metaFileContent.indexOf("]" + key + "[");
+		
+		if (start == -1) {
+			return null;
+		}
+		
+		int end = metaFileContent.indexOf(']', start + key.length() + 2);
+		return metaFileContent.substring(start + key.length() + 2, end);
 	}
 	
 	public int get_max_frame_number() {
 		return this.MAX_FRAMES;
 	}
+	
+	/*
+	 * Frame rate of the video (frames per numerator / denominator seconds)
+	 */
+	public int get_frame_rate_numerator() {
+		return this.FRAME_RATE_NUMERATOR;
+	}
+	
+	public int get_frame_rate_denominator() {
+		return this.FRAME_RATE_DENOMINATOR;
+	}
 }
@@ -22,25 +22,209 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 package Decoder;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 
+import Main.config;
+import Utils.ImageFormat;
+import Utils.PixelRaster;
+
+/*
+ * Writes the decoded frames as numbered image files (<path>/result/0.png, ...).
+ * The files get encoded on a small worker pool; release_image() only blocks
+ * while config.IMAGE_SINK_QUEUE_DEPTH frames are waiting or being written.
+ * Y4M output goes into a single stream (<path>/result.y4m) that is written on the calling thread.
+ */
 public class DataPipeValveEngine {
-	private File output = null;
+	private File OUTPUT = null;
+	private DecoderSettings SETTINGS = null;
+	private ExecutorService WORKERS = null;
+	private Semaphore FREE_SLOTS = new Semaphore(config.IMAGE_SINK_QUEUE_DEPTH);
+	private volatile boolean FAILED = false;
+	private int FRAME_COUNTER = 0;
+	private Y4MFrameWriter Y4M_WRITER = null;
+	private int FRAME_RATE_NUMERATOR = config.DEFAULT_FRAME_RATE_NUMERATOR;
+	private int FRAME_RATE_DENOMINATOR = config.DEFAULT_FRAME_RATE_DENOMINATOR;
 	
 	public DataPipeValveEngine(String path) {
-		this.output = new File(path + "/result");
-		this.output.mkdir();
+		this(path, new DecoderSettings());
 	}
 	
-	private int frameCounter = 0;
+	public DataPipeValveEngine(String path, DecoderSettings settings) {
+		this.SETTINGS = settings == null ? new DecoderSettings() : settings;
+		
+		if (this.SETTINGS.getImageFormat() == ImageFormat.Y4M) {
+			this.OUTPUT = new File(path + "/result.y4m");
+		} else {
+			this.OUTPUT = new File(path + "/result");
+			this.OUTPUT.mkdir();
+		}
+		
+		int threads = config.IMAGE_SINK_THREADS > 0 ? config.IMAGE_SINK_THREADS : Runtime.getRuntime().availableProcessors();
+		this.WORKERS = Executors.newFixedThreadPool(threads, (task) -> {
+			Thread worker = new Thread(task, "Image sink");
+			worker.setDaemon(true);
+			return worker;
+		});
+	}
 	
-	public void release_image(BufferedImage img) {
+	/*
+	 * Purpose: Set the frame rate of the Y4M stream (before the first frame)
+	 * Return Type: void
+	 * Params: int numerator => Frames per denominator seconds;
+	 * 			int denominator => see numerator
+	 */
+	public void set_frame_rate(int numerator, int denominator) {
+		this.FRAME_RATE_NUMERATOR = numerator;
+		this.FRAME_RATE_DENOMINATOR = denominator;
+	}
+	
+	/*
+	 * Purpose: Write the next frame (Y4M: right away; image files: copy and queue the frame)
+	 * Return Type: boolean => true = written or queued; false = the frame or a previous frame could not be written
+	 * Params: PixelRaster frame => Frame to write (may be reused after the call)
+	 */
+	public boolean release_frame(PixelRaster frame) {
+		if (this.SETTINGS.getImageFormat() != ImageFormat.Y4M) {
+			return release_image(frame.toBufferedImage());
+		} else if (this.FAILED) {
+			return false;
+		}
+		
 		try {
-			ImageIO.write(img, "png", new File(output.getAbsolutePath() + "/" + (this.frameCounter++) + ".png"));
+			if (this.Y4M_WRITER == null) {
+				this.Y4M_WRITER = new Y4MFrameWriter(new FileOutputStream(this.OUTPUT), frame.getWidth(), frame.getHeight(), this.FRAME_RATE_NUMERATOR, this.FRAME_RATE_DENOMINATOR);
+			}
+			
+			this.Y4M_WRITER.write_frame(frame);
+			this.FRAME_COUNTER++;
 		} catch (Exception e) {
 			e.printStackTrace();
+			System.err.println("Could not write frame " + this.FRAME_COUNTER + " into " + this.OUTPUT.getAbsolutePath() + "! > Abort");
+			this.FAILED = true;
+		}
+		
+		return !this.FAILED;
+	}
+	
+	/*
+	 * Purpose: Queue the next frame for writing (the number is taken now, so the files stay in order)
+	 * Return Type: boolean => true = queued; false = a previous frame could not be written
+	 * Params: BufferedImage img => Frame to write (must not be changed afterwards)
+	 */
+	public boolean release_image(BufferedImage img) {
+		if (this.SETTINGS.getImageFormat() == ImageFormat.Y4M) {
+			return release_frame(new PixelRaster(img));
+		} else if (this.FAILED) {
+			return false;
+		}
+		
+		try {
+			this.FREE_SLOTS.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		
+		File file = new File(this.OUTPUT, (this.FRAME_COUNTER++) + "." + this.SETTINGS.getImageFormat().name().toLowerCase());
+		
+		this.WORKERS.execute(() -> {
+			try {
+				write_image(img, file);
+			} catch (Exception e) {
+				e.printStackTrace();
+				System.err.println("Could not write " + file.getAbsolutePath() + "! > Abort");
+				this.FAILED = true;
+			} finally {
+				this.FREE_SLOTS.release();
+			}
+		});
+		
+		return true;
+	}
+	
+	/*
+	 * Purpose: Wait for all queued frames and stop the workers
+	 * Return Type: boolean => true = all frames written; false = at least one frame failed
+	 * Params: void
+	 */
+	public boolean close() {
+		try {
+			this.FREE_SLOTS.acquire(config.IMAGE_SINK_QUEUE_DEPTH);
+			this.FREE_SLOTS.release(config.IMAGE_SINK_QUEUE_DEPTH);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.FAILED = true;
+		}
+		
+		this.WORKERS.shutdown();
+		
+		if (this.Y4M_WRITER != null) {
+			try {
+				this.Y4M_WRITER.close();
+			} catch (Exception e) {
+				e.printStackTrace();
+				this.FAILED = true;
+			}
+		}
+		
+		return !this.FAILED;
+	}
+	
+	private void write_image(BufferedImage img, File file) throws Exception {
+		ImageFormat format = this.SETTINGS.getImageFormat();
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format.name().toLowerCase());
+		
+		if (!writers.hasNext()) {
+			throw new IllegalStateException("No writer for " + format);
+		}
+		
+		ImageWriter writer = writers.next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		
+		if (format == ImageFormat.PNG) {
+			//The PNG writer maps the quality linear to the deflate level (1.0 = level 0)
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality((9 - this.SETTINGS.getCompressionLevel()) / 9.0F);
+		} else {
+			img = strip_alpha(img);
+		}
+		
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(img, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+	}
+	
+	/*
+	 * Purpose: Copy an ARGB frame into a RGB image (BMP has no alpha channel; the frames are opaque anyway)
+	 * Return Type: BufferedImage => RGB image
+	 * Params: BufferedImage img => Frame of the decoder (TYPE_INT_ARGB)
+	 */
+	private BufferedImage strip_alpha(BufferedImage img) {
+		BufferedImage rgb = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+		
+		if (img.getType() == BufferedImage.TYPE_INT_ARGB) {
+			int[] source = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
+			int[] target = ((DataBufferInt)rgb.getRaster().getDataBuffer()).getData();
+			System.arraycopy(source, 0, target, 0, target.length);
+		} else {
+			rgb.getGraphics().drawImage(img, 0, 0, null);
 		}
+		
+		return rgb;
 	}
 }
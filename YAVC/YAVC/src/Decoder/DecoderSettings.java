@@ -0,0 +1,64 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import Main.config;
+import Utils.ImageFormat;
+
+/*
+ * Settings of a single decoding process (defaults equal the UI defaults)
+ */
+public class DecoderSettings {
+	private ImageFormat imageFormat = config.DEFAULT_IMAGE_FORMAT;
+	private int compressionLevel = config.DEFAULT_PNG_COMPRESSION;
+	
+	public DecoderSettings() {}
+	
+	public ImageFormat getImageFormat() {
+		return imageFormat;
+	}
+	
+	public void setImageFormat(ImageFormat imageFormat) {
+		if (imageFormat == null) {
+			System.err.println("No image format provided! > Skip");
+			return;
+		}
+		
+		this.imageFormat = imageFormat;
+	}
+	
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+	
+	/*
+	 * Deflate level of PNG files (0 = uncompressed, 9 = smallest); BMP files are always uncompressed
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		if (compressionLevel < 0 || compressionLevel > 9) {
+			System.err.println("Compression level " + compressionLevel + " is out of range (0 - 9)! > Skip");
+			return;
+		}
+		
+		this.compressionLevel = compressionLevel;
+	}
+}
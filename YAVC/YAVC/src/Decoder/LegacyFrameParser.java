@@ -0,0 +1,201 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+
+import Main.config;
+import Utils.DCTObject;
+import Utils.Vector;
+
+/*
+ * Single pass cursor over the frame content of a format version 1 file.
+ * Layout: DCT_DEF_S, per block: Y rows, DCT_Y_END_DEF, Cb rows, DCT_CB_END_DEF, Cr rows, DCT_CR_END_DEF,
+ * 			position (2 chars), DCT_POS_END_DEF; rows are separated by DCT_MATRIX_NL_DEF;
+ * 			optionally V_DEF_S, vector count (2 chars), 5 chars per vector.
+ * The coefficients are written into matrices that are reused for every block,
+ * so a returned DCTObject is only valid until the next call of next_block().
+ */
+public class LegacyFrameParser {
+	private String DATA = null;
+	private int CURSOR = 0;
+	private int BLOCKS_END = 0;
+	
+	//Reused matrices per block size (index = size)
+	private int[][][] LUMA = new int[33][][];
+	private int[][][] CB = new int[33][][];
+	private int[][][] CR = new int[33][][];
+	
+	public LegacyFrameParser() {}
+	
+	/*
+	 * Purpose: Start parsing a new frame
+	 * Return Type: void
+	 * Params: String frameContent => Content of the frame file
+	 */
+	public void reset(String frameContent) {
+		this.DATA = frameContent;
+		this.CURSOR = frameContent.length() > 0 && frameContent.charAt(0) == config.DCT_DEF_S ? 1 : 0;
+		int vectorStart = frameContent.indexOf(config.V_DEF_S);
+		this.BLOCKS_END = vectorStart == -1 ? frameContent.length() : vectorStart;
+	}
+	
+	/*
+	 * Purpose: Read the next block of the frame
+	 * Return Type: DCTObject => Coefficients and position of the block (NULL = no more blocks or malformed block)
+	 * Params: void
+	 */
+	public DCTObject next_block() {
+		if (this.CURSOR >= this.BLOCKS_END) {
+			return null;
+		}
+		
+		int[][] Y = read_matrix(config.DCT_Y_END_DEF, this.LUMA);
+		int[][] Cb = Y == null ? null : read_matrix(config.DCT_CB_END_DEF, this.CB);
+		int[][] Cr = Cb == null ? null : read_matrix(config.DCT_CR_END_DEF, this.CR);
+		
+		if (Cr == null) {
+			System.err.println("Malformed block at " + this.CURSOR + "! > Skip rest of frame");
+			this.CURSOR = this.BLOCKS_END;
+			return null;
+		}
+		
+		int posStart = this.CURSOR;
+		
+		while (this.CURSOR < this.BLOCKS_END && this.DATA.charAt(this.CURSOR) != config.DCT_POS_END_DEF) {
+			this.CURSOR++;
+		}
+		
+		Point pos = new Point(0, 0);
+		
+		if (this.CURSOR - posStart != 2) {
+			System.err.println("Position longer than 2? Position available?");
+		} else {
+			pos.setLocation(this.DATA.charAt(posStart) - config.RESERVED_TABLE_SIZE, this.DATA.charAt(posStart + 1) - config.RESERVED_TABLE_SIZE);
+		}
+		
+		this.CURSOR++; //DCT_POS_END_DEF
+		return new DCTObject(Y, Cb, Cr, pos);
+	}
+	
+	/*
+	 * Purpose: Read the vectors that follow the blocks
+	 * Return Type: ArrayList<Vector> => Vectors of the frame (NULL = frame has no vectors)
+	 * Params: void
+	 */
+	public ArrayList<Vector> read_vectors() {
+		int start = this.BLOCKS_END;
+		
+		if (start + 3 > this.DATA.length()) {
+			return null;
+		}
+		
+		int vecCount = ((int)this.DATA.charAt(start + 1) << 16) | (int)this.DATA.charAt(start + 2);
+		ArrayList<Vector> vecs = new ArrayList<Vector>(Math.min(vecCount, (this.DATA.length() - start) / 5 + 1));
+		
+		for (int i = start + 3; i + 5 <= this.DATA.length(); i += 5) {
+			int info = this.DATA.charAt(i + 4) - config.RESERVED_TABLE_SIZE;
+			int x = this.DATA.charAt(i) - config.RESERVED_TABLE_SIZE;
+			int y = this.DATA.charAt(i + 1) - config.RESERVED_TABLE_SIZE;
+			int spanX = shift_vec_span_back(this.DATA.charAt(i + 2));
+			int spanY = shift_vec_span_back(this.DATA.charAt(i + 3));
+			
+			vecs.add(new Vector(new Point(x, y), spanX, spanY, (info >> 8) & 0xFF, info & 0xFF));
+		}
+		
+		if (vecs.size() < vecCount) {
+			System.err.println("Less vectors than there should be (" + vecs.size() + " / " + vecCount + ")");
+		}
+		
+		return vecs;
+	}
+	
+	/*
+	 * Purpose: Read a square matrix (rows separated by DCT_MATRIX_NL_DEF) up to its end marker
+	 * Return Type: int[][] => Reused matrix with the coefficients (NULL if malformed)
+	 * Params: char end => End marker of the matrix;
+	 * 			int[][][] pool => Reused matrices per size
+	 */
+	private int[][] read_matrix(char end, int[][][] pool) {
+		int size = 0;
+		
+		//The first row tells the size of the matrix
+		while (this.CURSOR + size < this.BLOCKS_END) {
+			char c = this.DATA.charAt(this.CURSOR + size);
+			
+			if (c == end || c == config.DCT_MATRIX_NL_DEF) {
+				break;
+			}
+			
+			size++;
+		}
+		
+		if (size == 0 || size >= pool.length) {
+			return null;
+		}
+		
+		if (pool[size] == null) {
+			pool[size] = new int[size][size];
+		}
+		
+		int[][] matrix = pool[size];
+		
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				if (this.CURSOR >= this.BLOCKS_END) {
+					return null;
+				}
+				
+				matrix[y][x] = shift_DCT_back(this.DATA.charAt(this.CURSOR++));
+			}
+			
+			if (this.CURSOR >= this.BLOCKS_END) {
+				return null;
+			}
+			
+			char separator = this.DATA.charAt(this.CURSOR++);
+			
+			if (separator != (y + 1 < size ? config.DCT_MATRIX_NL_DEF : end)) {
+				return null;
+			}
+		}
+		
+		return matrix;
+	}
+	
+	private int shift_DCT_back(char val) {
+		if (((val >> 14) & 0x1) == 1) {
+			return -1 * (((int)val - config.RESERVED_TABLE_SIZE) & 0xFFF);
+		}
+		
+		return (((int)val - config.RESERVED_TABLE_SIZE) & 0xFFF);
+	}
+	
+	private int shift_vec_span_back(char span) {
+		if (((span >> 14) & 0x1) == 1) {
+			return (-1 * (((int)span & 0xFFF) - config.RESERVED_TABLE_SIZE));
+		}
+		
+		return ((int)span) - config.RESERVED_TABLE_SIZE;
+	}
+}
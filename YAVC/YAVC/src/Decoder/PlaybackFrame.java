@@ -0,0 +1,74 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import java.awt.image.BufferedImage;
+
+/*
+ * Decoded frame waiting in the decode-ahead buffer of the YavcPlayer.
+ * A frame with the end flag set marks the end of the file.
+ */
+public class PlaybackFrame {
+	private int frameNumber = 0;
+	private int timestamp = 0;
+	private boolean referenced = false;
+	private BufferedImage image = null;
+	private boolean end = false;
+	
+	public PlaybackFrame(int frameNumber, int timestamp, boolean referenced, BufferedImage image) {
+		this.frameNumber = frameNumber;
+		this.timestamp = timestamp;
+		this.referenced = referenced;
+		this.image = image;
+	}
+	
+	/*
+	 * Purpose: Create the marker that ends the playback
+	 * Return Type: PlaybackFrame => End marker
+	 * Params: void
+	 */
+	public static PlaybackFrame create_end_marker() {
+		PlaybackFrame marker = new PlaybackFrame(-1, 0, false, null);
+		marker.end = true;
+		return marker;
+	}
+	
+	public boolean isEnd() {
+		return end;
+	}
+	
+	public int getFrameNumber() {
+		return frameNumber;
+	}
+	
+	public int getTimestamp() {
+		return timestamp;
+	}
+	
+	public boolean isReferenced() {
+		return referenced;
+	}
+	
+	public BufferedImage getImage() {
+		return image;
+	}
+}
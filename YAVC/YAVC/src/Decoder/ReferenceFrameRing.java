@@ -0,0 +1,145 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import Utils.ColorManager;
+import Utils.PixelRaster;
+import Utils.PlanarFrame;
+
+/*
+ * Fixed-capacity ring of the decoded reference frames.
+ * One slot more than references is kept, so the frame that is being decoded
+ * never overwrites a reference it may point to.
+ * Slots (ARGB raster + planar form) are allocated once and reused afterwards;
+ * the planar form is converted the first time a vector refers to the frame.
+ */
+public class ReferenceFrameRing {
+	private PixelRaster[] FRAMES = null;
+	private PlanarFrame[] PLANES = null;
+	private boolean[] PLANES_VALID = null;
+	private ColorManager COLOR_MANAGER = new ColorManager();
+	
+	private int MAX_REFERENCES = 0;
+	private int WIDTH = 0;
+	private int HEIGHT = 0;
+	private int HEAD = 0;
+	private int COUNT = 0;
+	
+	/*
+	 * Params: int maxReferences => Amount of frames vectors can refer to (config.MAX_BACK_REF);
+	 * 			int width => Width of the frames;
+	 * 			int height => Height of the frames
+	 */
+	public ReferenceFrameRing(int maxReferences, int width, int height) {
+		this.MAX_REFERENCES = maxReferences;
+		this.WIDTH = width;
+		this.HEIGHT = height;
+		this.FRAMES = new PixelRaster[maxReferences + 1];
+		this.PLANES = new PlanarFrame[maxReferences + 1];
+		this.PLANES_VALID = new boolean[maxReferences + 1];
+	}
+	
+	/*
+	 * Purpose: Get the buffer the next frame should be decoded into (no reference)
+	 * Return Type: PixelRaster => Frame buffer of the next slot
+	 * Params: void
+	 */
+	public PixelRaster next_frame_buffer() {
+		if (this.FRAMES[this.HEAD] == null) {
+			this.FRAMES[this.HEAD] = new PixelRaster(this.WIDTH, this.HEIGHT);
+		}
+		
+		return this.FRAMES[this.HEAD];
+	}
+	
+	/*
+	 * Purpose: Make the frame in next_frame_buffer() the newest reference (drops the oldest reference if the ring is full)
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void commit() {
+		next_frame_buffer();
+		this.PLANES_VALID[this.HEAD] = false;
+		this.HEAD = (this.HEAD + 1) % this.FRAMES.length;
+		this.COUNT = Math.min(this.COUNT + 1, this.MAX_REFERENCES);
+	}
+	
+	/*
+	 * Purpose: Get a reference frame
+	 * Return Type: PixelRaster => Reference frame (NULL if there is no such reference)
+	 * Params: int drawback => Distance to the reference (1 = newest frame)
+	 */
+	public PixelRaster get_frame(int drawback) {
+		int slot = get_slot(drawback);
+		return slot == -1 ? null : this.FRAMES[slot];
+	}
+	
+	/*
+	 * Purpose: Get the planar YCbCr form of a reference frame (converted once per frame)
+	 * Return Type: PlanarFrame => Planar reference frame (NULL if there is no such reference)
+	 * Params: int drawback => Distance to the reference (1 = newest frame)
+	 */
+	public PlanarFrame get_planar_frame(int drawback) {
+		int slot = get_slot(drawback);
+		
+		if (slot == -1) {
+			return null;
+		}
+		
+		if (!this.PLANES_VALID[slot]) {
+			if (this.PLANES[slot] == null) {
+				this.PLANES[slot] = new PlanarFrame(this.WIDTH, this.HEIGHT);
+			}
+			
+			this.COLOR_MANAGER.convert_ARGB_to_planes(this.FRAMES[slot].getData(), this.PLANES[slot]);
+			this.PLANES_VALID[slot] = true;
+		}
+		
+		return this.PLANES[slot];
+	}
+	
+	/*
+	 * Purpose: Get the amount of frames that can be referenced
+	 * Return Type: int => Amount of references
+	 * Params: void
+	 */
+	public int size() {
+		return this.COUNT;
+	}
+	
+	/*
+	 * Purpose: Drop all references (the buffers are kept for reuse)
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void clear() {
+		this.COUNT = 0;
+	}
+	
+	private int get_slot(int drawback) {
+		if (drawback < 1 || drawback > this.COUNT) {
+			return -1;
+		}
+		
+		return (this.HEAD - drawback + this.FRAMES.length) % this.FRAMES.length;
+	}
+}
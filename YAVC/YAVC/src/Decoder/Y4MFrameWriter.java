@@ -0,0 +1,99 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import Utils.ColorManager;
+import Utils.PixelRaster;
+import Utils.PlanarFrame;
+
+/*
+ * Writes frames as YUV4MPEG2 stream (8 bit, 4:2:0, full range YCbCr of the codec => C420jpeg)
+ */
+public class Y4MFrameWriter {
+	private static final byte[] FRAME_HEADER = "FRAME\n".getBytes(StandardCharsets.US_ASCII);
+	
+	private OutputStream OUT = null;
+	private ColorManager COLOR_MANAGER = new ColorManager();
+	private PlanarFrame PLANES = null;
+	
+	/*
+	 * Params: OutputStream out => Stream to write into (gets closed by close());
+	 * 			int width => Width of the frames;
+	 * 			int height => Height of the frames;
+	 * 			int frameRateNumerator => Frames per frameRateDenominator seconds;
+	 * 			int frameRateDenominator => see frameRateNumerator
+	 */
+	public Y4MFrameWriter(OutputStream out, int width, int height, int frameRateNumerator, int frameRateDenominator) throws IOException {
+		this.OUT = new BufferedOutputStream(out, 1 << 16);
+		this.PLANES = new PlanarFrame(width, height);
+		
+		String header = "YUV4MPEG2 W" + width + " H" + height + " F" + frameRateNumerator + ":" + frameRateDenominator + " Ip A1:1 C420jpeg\n";
+		this.OUT.write(header.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	/*
+	 * Purpose: Convert a frame to planes and append it to the stream
+	 * 			(The decoder reconstructs, references and blurs RGB frames, so this stays the one conversion per frame)
+	 * Return Type: void
+	 * Params: PixelRaster frame => Frame to write (same size as the stream)
+	 */
+	public void write_frame(PixelRaster frame) throws IOException {
+		if (frame.getWidth() != this.PLANES.getWidth() || frame.getHeight() != this.PLANES.getHeight()) {
+			throw new IOException("Frame size " + frame.getWidth() + "x" + frame.getHeight() + " does not match the stream");
+		}
+		
+		this.COLOR_MANAGER.convert_ARGB_to_planes(frame.getData(), this.PLANES);
+		write_frame(this.PLANES);
+	}
+	
+	/*
+	 * Purpose: Append planes to the stream without any conversion
+	 * Return Type: void
+	 * Params: PlanarFrame frame => Frame to write (same size as the stream)
+	 */
+	public void write_frame(PlanarFrame frame) throws IOException {
+		this.OUT.write(FRAME_HEADER);
+		write_plane(frame.getLumaPlane(), frame.getWidth(), frame.getHeight(), frame.getLumaStride());
+		write_plane(frame.getCbPlane(), frame.getChromaWidth(), frame.getChromaHeight(), frame.getChromaStride());
+		write_plane(frame.getCrPlane(), frame.getChromaWidth(), frame.getChromaHeight(), frame.getChromaStride());
+	}
+	
+	public void close() throws IOException {
+		this.OUT.close();
+	}
+	
+	private void write_plane(byte[] plane, int width, int height, int stride) throws IOException {
+		if (width == stride) {
+			this.OUT.write(plane, 0, width * height);
+			return;
+		}
+		
+		for (int y = 0; y < height; y++) {
+			this.OUT.write(plane, y * stride, width);
+		}
+	}
+}
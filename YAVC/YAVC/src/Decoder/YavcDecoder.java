@@ -0,0 +1,165 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import java.io.File;
+import java.io.InputStream;
+
+import Utils.Filter;
+import Utils.PixelRaster;
+import Utils.ProgressListener;
+import Utils.Status;
+
+/*
+ * Headless decoder: Decodes a YAVC file into numbered image files (<output>/result/0.png, ...)
+ * or a Y4M stream (<output>/result.y4m).
+ * One instance decodes one file at a time; decode() blocks until done.
+ */
+public class YavcDecoder {
+	private volatile Status STATUS = Status.STOPPED;
+	
+	private DecoderSettings SETTINGS = null;
+	private ProgressListener LISTENER = null;
+	private Filter FILTER = new Filter();
+	
+	public YavcDecoder(ProgressListener listener) {
+		this(new DecoderSettings(), listener);
+	}
+	
+	public YavcDecoder(DecoderSettings settings, ProgressListener listener) {
+		this.SETTINGS = settings == null ? new DecoderSettings() : settings;
+		this.LISTENER = listener == null ? (current, total) -> {} : listener;
+	}
+	
+	/*
+	 * Purpose: Decode a YAVC file
+	 * Return Type: boolean => true = all frames decoded; false = stopped or failed
+	 * Params: File yavcFile => File to decode;
+	 * 			File outputDirectory => Directory to write the frames into
+	 */
+	public boolean decode(File yavcFile, File outputDirectory) {
+		if (yavcFile == null || !yavcFile.isFile()) {
+			System.err.println("Input " + yavcFile + " is no file! > Abort");
+			return false;
+		}
+		
+		DataGrabber grabber = new DataGrabber();
+		grabber.slice(yavcFile);
+		return decode(grabber, outputDirectory);
+	}
+	
+	/*
+	 * Purpose: Decode a YAVC stream
+	 * Return Type: boolean => true = all frames decoded; false = stopped or failed
+	 * Params: InputStream in => Stream of the YAVC file (gets closed);
+	 * 			File cacheDirectory => Directory for the deflated parts;
+	 * 			File outputDirectory => Directory to write the frames into
+	 */
+	public boolean decode(InputStream in, File cacheDirectory, File outputDirectory) {
+		DataGrabber grabber = new DataGrabber();
+		grabber.slice(in, cacheDirectory);
+		return decode(grabber, outputDirectory);
+	}
+	
+	/*
+	 * Purpose: Stop the running decoding process
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void stop() {
+		this.STATUS = Status.STOPPED;
+	}
+	
+	private boolean decode(DataGrabber grabber, File outputDirectory) {
+		if (outputDirectory == null) {
+			System.err.println("No output directory! > Abort");
+			return false;
+		}
+		
+		this.STATUS = Status.RUNNING;
+		outputDirectory.mkdirs();
+		boolean previews = this.LISTENER.wants_previews();
+		DataPipeValveEngine dataPipeValveEngine = new DataPipeValveEngine(outputDirectory.getAbsolutePath(), this.SETTINGS);
+		
+		try {
+			DataPipeEngine dataPipeEngine = new DataPipeEngine(grabber);
+			dataPipeValveEngine.set_frame_rate(dataPipeEngine.get_frame_rate_numerator(), dataPipeEngine.get_frame_rate_denominator());
+			
+			ReferenceFrameRing references = dataPipeEngine.create_reference_ring();
+			PixelRaster outputFrame = dataPipeEngine.create_frame_buffer();
+			
+			int frameCounter = 0;
+			int maxFrames = dataPipeEngine.get_max_frame_number();
+			
+			while (dataPipeEngine.hasNext(frameCounter) && this.STATUS == Status.RUNNING) {
+				if (references.size() == 0) {
+					if (!dataPipeEngine.scrape_main_image(references.next_frame_buffer())) {
+						this.STATUS = Status.STOPPED;
+						break;
+					}
+					
+					references.commit();
+					
+					if (!dataPipeValveEngine.release_frame(references.get_frame(1))) {
+						this.STATUS = Status.STOPPED;
+					}
+					
+					continue;
+				}
+				
+				if (!dataPipeEngine.build_next_frame(frameCounter++, references)) {
+					System.err.println("Frame " + frameCounter + " is missing! > Abort");
+					this.STATUS = Status.STOPPED;
+					break;
+				}
+				
+				this.FILTER.apply_gaussian_blur(references.get_frame(1), outputFrame, 1);
+				
+				if (previews) {
+					this.LISTENER.decoded_frame_preview(outputFrame.toBufferedImage());
+				}
+				
+				if (!dataPipeValveEngine.release_frame(outputFrame)) {
+					this.STATUS = Status.STOPPED;
+					break;
+				}
+				
+				this.LISTENER.progress(frameCounter, maxFrames);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			this.STATUS = Status.STOPPED;
+		}
+		
+		//Wait for the image writers, the decoding is only complete with all files written
+		if (!dataPipeValveEngine.close()) {
+			this.STATUS = Status.STOPPED;
+		}
+		
+		grabber.close();
+		
+		boolean completed = this.STATUS == Status.RUNNING;
+		this.STATUS = Status.STOPPED;
+		this.LISTENER.finished(completed);
+		return completed;
+	}
+}
@@ -0,0 +1,219 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+
+import Utils.Filter;
+import Utils.FrameIndexEntry;
+import Utils.PixelRaster;
+
+/*
+ * Random access to the frames of a YAVC file (e.g. for scrubbing through a clip).
+ * Frame 0 is the start frame, the numbering matches the PNG files of the YavcDecoder.
+ * A frame is decoded from the nearest preceding intra frame of the frame index,
+ * reading a later frame continues from the last decoded one.
+ * Files without a frame index are always decoded from the start frame.
+ */
+public class YavcFrameReader {
+	private DataGrabber GRABBER = new DataGrabber();
+	private DataPipeEngine DATA_PIPE_ENGINE = null;
+	private Filter FILTER = new Filter();
+	private ArrayList<FrameIndexEntry> INDEX = null;
+	private boolean[] REFERENCED = null;
+	private ReferenceFrameRing REFERENCES = null;
+	private PixelRaster OUTPUT_FRAME = null;
+	private int CURRENT_FRAME = -1;
+	
+	public YavcFrameReader(File yavcFile) {
+		this.GRABBER.slice(yavcFile);
+		this.DATA_PIPE_ENGINE = new DataPipeEngine(this.GRABBER);
+		this.INDEX = this.GRABBER.get_frame_index();
+		this.REFERENCES = this.DATA_PIPE_ENGINE.create_reference_ring();
+		this.OUTPUT_FRAME = this.DATA_PIPE_ENGINE.create_frame_buffer();
+	}
+	
+	/*
+	 * Purpose: Get the number of frames in the file
+	 * Return Type: int => Number of frames (from the index; the meta data if there is no index)
+	 * Params: void
+	 */
+	public int get_frame_count() {
+		return this.INDEX != null ? this.INDEX.size() : this.DATA_PIPE_ENGINE.get_max_frame_number();
+	}
+	
+	/*
+	 * Purpose: Check whether a frame can be decoded without other frames
+	 * Return Type: boolean => true = intra frame; false = predicted frame or unknown
+	 * Params: int frameNumber => Number of the frame
+	 */
+	public boolean is_intra_frame(int frameNumber) {
+		if (frameNumber == 0) {
+			return true;
+		}
+		
+		return this.INDEX != null && frameNumber > 0 && frameNumber < this.INDEX.size() && this.INDEX.get(frameNumber).isIntra();
+	}
+	
+	/*
+	 * Purpose: Get the presentation time of a frame
+	 * Return Type: int => Timestamp in frames of the frame rate (the frame number for files without timestamps)
+	 * Params: int frameNumber => Number of the frame
+	 */
+	public int get_timestamp(int frameNumber) {
+		if (this.INDEX != null && frameNumber >= 0 && frameNumber < this.INDEX.size()) {
+			return this.INDEX.get(frameNumber).getTimestamp();
+		}
+		
+		return frameNumber;
+	}
+	
+	/*
+	 * Frame rate of the file (frames per numerator / denominator seconds)
+	 */
+	public int get_frame_rate_numerator() {
+		return this.DATA_PIPE_ENGINE.get_frame_rate_numerator();
+	}
+	
+	public int get_frame_rate_denominator() {
+		return this.DATA_PIPE_ENGINE.get_frame_rate_denominator();
+	}
+	
+	/*
+	 * Purpose: Check whether a later frame needs this frame for decoding (as vector reference or as base of its differences)
+	 * Return Type: boolean => true = referenced or unknown; false = the frame can be left out
+	 * Params: int frameNumber => Number of the frame
+	 */
+	public boolean is_referenced(int frameNumber) {
+		if (frameNumber >= get_frame_count() - 1) {
+			return false;
+		} else if (this.INDEX == null) {
+			return true;
+		}
+		
+		if (this.REFERENCED == null) {
+			this.REFERENCED = new boolean[this.INDEX.size()];
+			
+			for (int i = 1; i < this.INDEX.size(); i++) {
+				for (int distance : this.INDEX.get(i).getReferences()) {
+					if (i - distance >= 0) {
+						this.REFERENCED[i - distance] = true;
+					}
+				}
+			}
+		}
+		
+		return this.REFERENCED[frameNumber];
+	}
+	
+	/*
+	 * Purpose: Decode a single frame
+	 * Return Type: BufferedImage => Decoded frame (as written by the YavcDecoder); NULL if the frame does not exist
+	 * Params: int frameNumber => Number of the frame
+	 */
+	public BufferedImage read_frame(int frameNumber) {
+		if (frameNumber < 0 || frameNumber >= get_frame_count()) {
+			System.err.println("Frame " + frameNumber + " does not exist! > Skip");
+			return null;
+		}
+		
+		int startFrame = find_start_frame(frameNumber);
+		
+		if (this.CURRENT_FRAME < startFrame || this.CURRENT_FRAME > frameNumber) {
+			if (!decode_start_frame(startFrame)) {
+				return null;
+			}
+		}
+		
+		while (this.CURRENT_FRAME < frameNumber) {
+			if (!decode_next_frame()) {
+				return null;
+			}
+		}
+		
+		this.FILTER.apply_gaussian_blur(this.REFERENCES.get_frame(1), this.OUTPUT_FRAME, 1);
+		return this.OUTPUT_FRAME.toBufferedImage();
+	}
+	
+	/*
+	 * Purpose: Release the opened file
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void close() {
+		this.GRABBER.close();
+		this.REFERENCES.clear();
+		this.CURRENT_FRAME = -1;
+	}
+	
+	private int find_start_frame(int frameNumber) {
+		for (int i = frameNumber; i > 0; i--) {
+			if (is_intra_frame(i)) {
+				return i;
+			}
+		}
+		
+		return 0;
+	}
+	
+	/*
+	 * Purpose: Decode an intra frame and drop all references before it
+	 * Return Type: boolean => true = decoded; false = frame is missing
+	 * Params: int frameNumber => Number of the intra frame
+	 */
+	private boolean decode_start_frame(int frameNumber) {
+		this.REFERENCES.clear();
+		this.CURRENT_FRAME = -1;
+		
+		if (frameNumber == 0) {
+			if (!this.DATA_PIPE_ENGINE.scrape_main_image(this.REFERENCES.next_frame_buffer())) {
+				return false;
+			}
+			
+			this.REFERENCES.commit();
+		} else {
+			//Intra frames cover the whole image, so the empty ring (empty previous frame) is enough
+			if (!this.DATA_PIPE_ENGINE.build_next_frame(frameNumber - 1, this.REFERENCES)) {
+				return false;
+			}
+		}
+		
+		this.CURRENT_FRAME = frameNumber;
+		return true;
+	}
+	
+	/*
+	 * Purpose: Decode the frame after the current frame
+	 * Return Type: boolean => true = decoded; false = frame is missing
+	 * Params: void
+	 */
+	private boolean decode_next_frame() {
+		if (!this.DATA_PIPE_ENGINE.build_next_frame(this.CURRENT_FRAME, this.REFERENCES)) {
+			return false;
+		}
+		
+		this.CURRENT_FRAME++;
+		return true;
+	}
+}
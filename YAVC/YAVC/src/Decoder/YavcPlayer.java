@@ -0,0 +1,229 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Decoder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Main.config;
+import Utils.ProgressListener;
+import Utils.Status;
+
+/*
+ * Plays a YAVC file in real time. A background thread decodes up to config.PLAYBACK_BUFFER_FRAMES
+ * frames ahead, the calling thread presents them (ProgressListener.decoded_frame_preview()) on a clock
+ * that follows the frame rate and timestamps of the file.
+ * If the decoding falls behind, late frames that no other frame references are dropped
+ * (they are not decoded at all); referenced frames are always decoded and shown as soon as possible.
+ */
+public class YavcPlayer {
+	private volatile Status STATUS = Status.STOPPED;
+	private volatile long CLOCK_START = -1;
+	
+	private ProgressListener LISTENER = null;
+	private Thread DECODER = null;
+	private long FRAME_RATE_NUMERATOR = config.DEFAULT_FRAME_RATE_NUMERATOR;
+	private long FRAME_RATE_DENOMINATOR = config.DEFAULT_FRAME_RATE_DENOMINATOR;
+	private int FIRST_TIMESTAMP = 0;
+	private int SHOWN_FRAMES = 0;
+	private AtomicInteger DROPPED_FRAMES = new AtomicInteger();
+	
+	public YavcPlayer(ProgressListener listener) {
+		this.LISTENER = listener == null ? (current, total) -> {} : listener;
+	}
+	
+	/*
+	 * Purpose: Play a YAVC file (blocks until the last frame is shown or the playback is stopped)
+	 * Return Type: boolean => true = played to the end; false = stopped or failed
+	 * Params: File yavcFile => File to play
+	 */
+	public boolean play(File yavcFile) {
+		if (yavcFile == null || !yavcFile.isFile()) {
+			System.err.println("Input " + yavcFile + " is no file! > Abort");
+			return false;
+		}
+		
+		this.STATUS = Status.RUNNING;
+		this.CLOCK_START = -1;
+		this.SHOWN_FRAMES = 0;
+		this.DROPPED_FRAMES.set(0);
+		
+		YavcFrameReader reader = null;
+		BlockingQueue<PlaybackFrame> buffer = new ArrayBlockingQueue<PlaybackFrame>(config.PLAYBACK_BUFFER_FRAMES);
+		boolean completed = false;
+		
+		try {
+			YavcFrameReader frameReader = new YavcFrameReader(yavcFile);
+			reader = frameReader;
+			this.FRAME_RATE_NUMERATOR = frameReader.get_frame_rate_numerator();
+			this.FRAME_RATE_DENOMINATOR = frameReader.get_frame_rate_denominator();
+			this.FIRST_TIMESTAMP = frameReader.get_timestamp(0);
+			
+			this.DECODER = new Thread(() -> {
+				decode_ahead(frameReader, buffer);
+			});
+			
+			this.DECODER.setName("PlaybackDecoder");
+			this.DECODER.start();
+			
+			completed = present_frames(buffer, frameReader.get_frame_count());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			this.STATUS = Status.STOPPED;
+			
+			if (this.DECODER != null) {
+				this.DECODER.interrupt();
+				
+				try {
+					this.DECODER.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			
+			if (reader != null) {
+				reader.close();
+			}
+		}
+		
+		System.out.println("Playback: " + this.SHOWN_FRAMES + " frames shown, " + this.DROPPED_FRAMES.get() + " dropped");
+		this.LISTENER.finished(completed);
+		return completed;
+	}
+	
+	/*
+	 * Purpose: Stop the running playback
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void stop() {
+		this.STATUS = Status.STOPPED;
+	}
+	
+	public int get_dropped_frames() {
+		return this.DROPPED_FRAMES.get();
+	}
+	
+	/*
+	 * Purpose: Presentation stage: Shows the buffered frames at their presentation time
+	 * Return Type: boolean => true = end of the file reached; false = stopped or failed
+	 * Params: BlockingQueue<PlaybackFrame> buffer => Decode-ahead buffer;
+	 * 			int frameCount => Amount of frames in the file
+	 */
+	private boolean present_frames(BlockingQueue<PlaybackFrame> buffer, int frameCount) throws InterruptedException {
+		while (this.STATUS == Status.RUNNING) {
+			//Poll, so a failed decoder that could not queue the end marker does not block the playback
+			PlaybackFrame frame = buffer.poll(100, TimeUnit.MILLISECONDS);
+			
+			if (frame == null) {
+				continue;
+			} else if (frame.isEnd()) {
+				return this.STATUS == Status.RUNNING;
+			}
+			
+			long now = System.nanoTime();
+			
+			//The clock starts with the first shown frame
+			if (this.CLOCK_START == -1) {
+				this.CLOCK_START = now - get_frame_offset(frame.getTimestamp());
+			}
+			
+			long presentationTime = get_presentation_time(frame.getTimestamp());
+			
+			if (now < presentationTime) {
+				TimeUnit.NANOSECONDS.sleep(presentationTime - now);
+			} else if (!frame.isReferenced() && is_late(frame.getTimestamp(), now)) {
+				this.DROPPED_FRAMES.incrementAndGet();
+				continue;
+			}
+			
+			this.LISTENER.decoded_frame_preview(frame.getImage());
+			this.LISTENER.progress(frame.getFrameNumber(), frameCount);
+			this.SHOWN_FRAMES++;
+		}
+		
+		return false;
+	}
+	
+	/*
+	 * Purpose: Decoding stage: Decodes the frames in order into the bounded buffer
+	 * 			(blocks while the buffer is full, leaves out unreferenced frames that are already late)
+	 * Return Type: void
+	 * Params: YavcFrameReader reader => Reader of the file;
+	 * 			BlockingQueue<PlaybackFrame> buffer => Decode-ahead buffer
+	 */
+	private void decode_ahead(YavcFrameReader reader, BlockingQueue<PlaybackFrame> buffer) {
+		try {
+			for (int i = 0; i < reader.get_frame_count() && this.STATUS == Status.RUNNING; i++) {
+				int timestamp = reader.get_timestamp(i);
+				boolean referenced = reader.is_referenced(i);
+				
+				if (!referenced && is_late(timestamp, System.nanoTime())) {
+					this.DROPPED_FRAMES.incrementAndGet();
+					continue;
+				}
+				
+				BufferedImage img = reader.read_frame(i);
+				
+				if (img == null) {
+					System.err.println("Frame " + i + " could not be decoded! > Abort");
+					this.STATUS = Status.STOPPED;
+					break;
+				}
+				
+				buffer.put(new PlaybackFrame(i, timestamp, referenced, img));
+			}
+			
+			buffer.put(PlaybackFrame.create_end_marker());
+		} catch (InterruptedException e) {
+			//Playback got stopped
+		} catch (Exception e) {
+			e.printStackTrace();
+			this.STATUS = Status.STOPPED;
+		}
+	}
+	
+	/*
+	 * Purpose: Check whether the time slot of a frame is already over
+	 * Return Type: boolean => true = late; false = in time or clock not started
+	 * Params: int timestamp => Timestamp of the frame;
+	 * 			long now => Current time (System.nanoTime())
+	 */
+	private boolean is_late(int timestamp, long now) {
+		return this.CLOCK_START != -1 && now > get_presentation_time(timestamp + 1);
+	}
+	
+	private long get_presentation_time(int timestamp) {
+		return this.CLOCK_START + get_frame_offset(timestamp);
+	}
+	
+	private long get_frame_offset(int timestamp) {
+		return (timestamp - this.FIRST_TIMESTAMP) * 1000000000L * this.FRAME_RATE_DENOMINATOR / this.FRAME_RATE_NUMERATOR;
+	}
+}
@@ -0,0 +1,116 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+import java.awt.image.BufferedImage;
+
+import Utils.PixelRaster;
+import Utils.PlanarFrame;
+
+/*
+ * Frame handed from the analysis stage to the encoding stage of the encoder pipeline.
+ * A frame with the end flag set marks the end of the sequence.
+ */
+public class AnalyzedFrame {
+	private int index = 0;
+	private boolean end = false;
+	private PixelRaster image = null;
+	private PlanarFrame planes = null;
+	private int[][] edges = null;
+	private int colorCount = 0;
+	private boolean sceneChanged = false;
+	private BufferedImage sobelImage = null;
+	
+	public AnalyzedFrame(int index, PixelRaster image) {
+		this(index, image, null);
+	}
+	
+	/*
+	 * Params: int index => Index of the frame;
+	 * 			PixelRaster image => RGB image for the analysis;
+	 * 			PlanarFrame planes => Planes of the source that get coded (NULL = converted from the image)
+	 */
+	public AnalyzedFrame(int index, PixelRaster image, PlanarFrame planes) {
+		this.index = index;
+		this.image = image;
+		this.planes = planes;
+	}
+	
+	/*
+	 * Purpose: Create the marker that ends the sequence
+	 * Return Type: AnalyzedFrame => End marker
+	 * Params: void
+	 */
+	public static AnalyzedFrame create_end_marker() {
+		AnalyzedFrame marker = new AnalyzedFrame(-1, null);
+		marker.end = true;
+		return marker;
+	}
+	
+	public boolean isEnd() {
+		return end;
+	}
+	
+	public int getIndex() {
+		return index;
+	}
+	
+	public PixelRaster getImage() {
+		return image;
+	}
+	
+	public PlanarFrame getPlanes() {
+		return planes;
+	}
+	
+	public int[][] getEdges() {
+		return edges;
+	}
+	
+	public void setEdges(int[][] edges) {
+		this.edges = edges;
+	}
+	
+	public int getColorCount() {
+		return colorCount;
+	}
+	
+	public void setColorCount(int colorCount) {
+		this.colorCount = colorCount;
+	}
+	
+	public boolean isSceneChanged() {
+		return sceneChanged;
+	}
+	
+	public void setSceneChanged(boolean sceneChanged) {
+		this.sceneChanged = sceneChanged;
+	}
+	
+	public BufferedImage getSobelImage() {
+		return sobelImage;
+	}
+	
+	public void setSobelImage(BufferedImage sobelImage) {
+		this.sobelImage = sobelImage;
+	}
+}
@@ -0,0 +1,190 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+public class DCTEngine {
+	/*
+	 * All transform sizes the codec can run into.
+	 * (4x4 blocks have 2x2 chroma, a 64x64 superblock has 32x32 chroma)
+	 */
+	private static final int MAX_SIZE = 32;
+
+	/*
+	 * Precomputed basis tables, indexed by the transform size.
+	 * BASIS[m][k][n] = step(k) * sqrt(2 / m) * cos((2n + 1) * k * PI / 2m)
+	 * For m = 2 the normalization sqrt(2 / m) is 1, which makes the tables
+	 * produce exactly the same coefficients as the former direct DCT-II.
+	 */
+	private static final double[][][] BASIS = new double[MAX_SIZE + 1][][];
+
+	static {
+		for (int m = 2; m <= MAX_SIZE; m *= 2) {
+			BASIS[m] = create_basis(m);
+		}
+	}
+	
+	/*
+	 * Quantization steps for QP % 6; doubles every 6 QP (QP 4 => step of 1.0)
+	 */
+	private static final double[] QSTEP = {0.625, 0.6875, 0.8125, 0.875, 1.0, 1.125};
+	
+	public DCTEngine() {}
+	
+	/*
+	 * Purpose: Get the quantization step of a QP
+	 * Return Type: double => Quantization step
+	 * Params: int qp => Quantization parameter (0 - 51)
+	 */
+	public double get_quantization_step(int qp) {
+		return QSTEP[qp % 6] * (1 << (qp / 6));
+	}
+
+	/*
+	 * Purpose: Create the DCT-II basis table for a specific size
+	 * Return Type: double[][] => Basis table [k][n]
+	 * Params: int m => Size of the transform
+	 */
+	private static double[][] create_basis(int m) {
+		double[][] basis = new double[m][m];
+		double norm = Math.sqrt(2.0 / (double)m);
+
+		for (int k = 0; k < m; k++) {
+			double step = k == 0 ? 1 / Math.sqrt(2) : 1;
+
+			for (int n = 0; n < m; n++) {
+				basis[k][n] = step * norm * Math.cos(((double)(2 * n + 1) * (double)k * Math.PI) / (double)(2 * m));
+			}
+		}
+
+		return basis;
+	}
+
+	/*
+	 * Purpose: Check whether the transform size is supported by the engine
+	 * Return Type: boolean => true = supported; false = not supported
+	 * Params: int m => Size of the transform
+	 */
+	public boolean is_supported_size(int m) {
+		return m > 0 && m <= MAX_SIZE && BASIS[m] != null;
+	}
+
+	/*
+	 * Purpose: Apply the separable DCT-II (rows, then columns) to a square matrix and quantize it
+	 * Return Type: int[][] => Quantized coefficients
+	 * Params: int[][] samples => Samples to transform (m x m);
+	 * 			double qstep => Quantization step
+	 */
+	public int[][] apply_DCT(int[][] samples, double qstep) {
+		int m = samples.length;
+
+		if (!is_supported_size(m)) {
+			System.err.println("DCT-II size " + m + " is not supported! > Skip");
+			return null;
+		}
+
+		double[][] basis = BASIS[m];
+		double[][] temp = new double[m][m];
+		int[][] coefficients = new int[m][m];
+
+		//Rows: temp[i][q] = SUM(j) samples[i][j] * basis[q][j]
+		for (int i = 0; i < m; i++) {
+			int[] row = samples[i];
+
+			for (int q = 0; q < m; q++) {
+				double[] b = basis[q];
+				double sum = 0;
+
+				for (int j = 0; j < m; j++) {
+					sum += row[j] * b[j];
+				}
+
+				temp[i][q] = sum;
+			}
+		}
+
+		//Columns: coefficients[p][q] = SUM(i) basis[p][i] * temp[i][q]
+		for (int p = 0; p < m; p++) {
+			double[] b = basis[p];
+
+			for (int q = 0; q < m; q++) {
+				double sum = 0;
+
+				for (int i = 0; i < m; i++) {
+					sum += b[i] * temp[i][q];
+				}
+
+				coefficients[p][q] = (int)Math.round(sum / qstep);
+			}
+		}
+
+		return coefficients;
+	}
+
+	/*
+	 * Purpose: Rescale quantized coefficients and apply the separable IDCT-II (rows, then columns)
+	 * Return Type: double[][] => Reconstructed samples
+	 * Params: int[][] coefficients => Quantized coefficients to transform back (m x m);
+	 * 			double qstep => Quantization step
+	 */
+	public double[][] apply_IDCT(int[][] coefficients, double qstep) {
+		int m = coefficients.length;
+
+		if (!is_supported_size(m)) {
+			System.err.println("IDCT-II size " + m + " is not supported! > Skip");
+			return null;
+		}
+
+		double[][] basis = BASIS[m];
+		double[][] temp = new double[m][m];
+		double[][] samples = new double[m][m];
+
+		//Rows: temp[p][j] = SUM(q) coefficients[p][q] * basis[q][j]
+		for (int p = 0; p < m; p++) {
+			int[] row = coefficients[p];
+
+			for (int j = 0; j < m; j++) {
+				double sum = 0;
+
+				for (int q = 0; q < m; q++) {
+					sum += row[q] * basis[q][j];
+				}
+
+				temp[p][j] = sum * qstep;
+			}
+		}
+
+		//Columns: samples[i][j] = SUM(p) basis[p][i] * temp[p][j]
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < m; j++) {
+				double sum = 0;
+
+				for (int p = 0; p < m; p++) {
+					sum += basis[p][i] * temp[p][j];
+				}
+
+				samples[i][j] = sum;
+			}
+		}
+
+		return samples;
+	}
+}
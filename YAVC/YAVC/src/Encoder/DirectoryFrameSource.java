@@ -0,0 +1,80 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+/*
+ * Reads numbered frames (0000.bmp, 0001.bmp, ...) from a directory
+ */
+public class DirectoryFrameSource implements FrameSource {
+	private File DIRECTORY = null;
+	private String EXTENSION = null;
+	private int FRAME_COUNT = 0;
+	
+	public DirectoryFrameSource(File directory) {
+		this(directory, ".bmp");
+	}
+	
+	public DirectoryFrameSource(File directory, String extension) {
+		this.DIRECTORY = directory;
+		this.EXTENSION = extension;
+		
+		File[] files = directory.listFiles();
+		this.FRAME_COUNT = files == null ? 0 : files.length;
+	}
+	
+	@Override
+	public int get_frame_count() {
+		return this.FRAME_COUNT;
+	}
+	
+	@Override
+	public BufferedImage read_frame(int index) throws IOException {
+		File frameFile = new File(this.DIRECTORY.getAbsolutePath() + "/" + set_awaited_file_name(index, this.EXTENSION));
+		
+		if (!frameFile.exists()) {
+			System.out.println("SKIP:" + frameFile.getAbsolutePath());
+			return null;
+		}
+		
+		return ImageIO.read(frameFile);
+	}
+	
+	private String set_awaited_file_name(int i, String type) {
+		String prefix = "";
+		
+		if (i < 10) {
+			prefix = "000";
+		} else if (i < 100) {
+			prefix = "00";
+		} else if (i < 1000) {
+			prefix = "0";
+		}
+		
+		return prefix + i + type;
+	}
+}
@@ -0,0 +1,93 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+import Main.config;
+import Utils.TransformMode;
+
+/*
+ * Settings of a single encoding process (defaults equal the UI defaults)
+ */
+public class EncoderSettings {
+	private int quantizationParameter = config.DEFAULT_QP;
+	private int SADTolerance = 32768;
+	private TransformMode transformMode = config.TRANSFORM_MODE;
+	private int frameRateNumerator = config.DEFAULT_FRAME_RATE_NUMERATOR;
+	private int frameRateDenominator = config.DEFAULT_FRAME_RATE_DENOMINATOR;
+	
+	public EncoderSettings() {}
+	
+	public int getQuantizationParameter() {
+		return quantizationParameter;
+	}
+	
+	public void setQuantizationParameter(int quantizationParameter) {
+		if (quantizationParameter < config.MIN_QP || quantizationParameter > config.MAX_QP) {
+			System.err.println("QP " + quantizationParameter + " is out of range (" + config.MIN_QP + " - " + config.MAX_QP + ")! > Skip");
+			return;
+		}
+		
+		this.quantizationParameter = quantizationParameter;
+	}
+	
+	public int getSADTolerance() {
+		return SADTolerance;
+	}
+	
+	public void setSADTolerance(int SADTolerance) {
+		this.SADTolerance = SADTolerance;
+	}
+	
+	public TransformMode getTransformMode() {
+		return transformMode;
+	}
+	
+	public void setTransformMode(TransformMode transformMode) {
+		if (transformMode == null) {
+			System.err.println("No transform mode provided! > Skip");
+			return;
+		}
+		
+		this.transformMode = transformMode;
+	}
+	
+	public int getFrameRateNumerator() {
+		return frameRateNumerator;
+	}
+	
+	public int getFrameRateDenominator() {
+		return frameRateDenominator;
+	}
+	
+	/*
+	 * Frame rate of the sequence as fraction (e.g. 30000 / 1001 for 29.97 fps)
+	 */
+	public void setFrameRate(int numerator, int denominator) {
+		if (numerator <= 0 || denominator <= 0) {
+			System.err.println("Frame rate " + numerator + ":" + denominator + " is invalid! > Skip");
+			return;
+		}
+		
+		this.frameRateNumerator = numerator;
+		this.frameRateDenominator = denominator;
+	}
+}
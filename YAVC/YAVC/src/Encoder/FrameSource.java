@@ -0,0 +1,68 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import Utils.PixelRaster;
+import Utils.PlanarFrame;
+
+/*
+ * Sequence of frames the encoder reads from (frames are read in ascending order)
+ */
+public interface FrameSource {
+	/*
+	 * Purpose: Get the amount of frames in the sequence
+	 * Return Type: int => Amount of frames; -1 = unknown (the sequence ends at the first frame that can't be read)
+	 * Params: void
+	 */
+	public int get_frame_count();
+	
+	/*
+	 * Purpose: Read a single frame
+	 * Return Type: BufferedImage => Frame; NULL = frame is missing and gets skipped
+	 * Params: int index => Index of the frame
+	 */
+	public BufferedImage read_frame(int index) throws IOException;
+	
+	/*
+	 * Purpose: Read a single frame as raster (sources with raw frames skip the BufferedImage)
+	 * Return Type: PixelRaster => Frame; NULL = frame is missing and gets skipped
+	 * Params: int index => Index of the frame
+	 */
+	public default PixelRaster read_raster(int index) throws IOException {
+		BufferedImage img = read_frame(index);
+		return img == null ? null : new PixelRaster(img);
+	}
+	
+	/*
+	 * Purpose: Read a single frame as YCbCr planes (raw sources hand out their planes, so they are coded without any RGB round trip)
+	 * Return Type: PlanarFrame => New frame; NULL = source has no planes (read_raster() is used) or frame is missing
+	 * Params: int index => Index of the frame
+	 */
+	public default PlanarFrame read_planes(int index) throws IOException {
+		return null;
+	}
+	
+	public default void close() throws IOException {}
+}
@@ -0,0 +1,243 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+public class IntegerTransformEngine {
+	/*
+	 * Quantization tables of the H.264 4x4 integer transform, indexed by [QP % 6][position class].
+	 * Position class 0 = both indices even; 1 = both indices odd; 2 = mixed
+	 */
+	private static final int[][] QUANT_MF = {
+		{13107, 5243, 8066},
+		{11916, 4660, 7490},
+		{10082, 4194, 6554},
+		{9362, 3647, 5825},
+		{8192, 3355, 5243},
+		{7282, 2893, 4559}
+	};
+	
+	private static final int[][] DEQUANT_V = {
+		{10, 16, 13},
+		{11, 18, 14},
+		{13, 20, 16},
+		{14, 23, 18},
+		{16, 25, 20},
+		{18, 29, 23}
+	};
+	
+	/*
+	 * Quantization steps (x64) for QP % 6; doubles every 6 QP.
+	 * QP 4 => 64 => step of 1.0
+	 */
+	private static final int[] QSTEP_64 = {40, 44, 52, 56, 64, 72};
+	
+	public IntegerTransformEngine() {}
+	
+	/*
+	 * Purpose: Apply the H.264 style 4x4 integer core transform and quantize the result
+	 * Return Type: int[][] => Quantized coefficients
+	 * Params: int[][] samples => Samples to transform (4x4);
+	 * 			int qp => Quantization parameter (0 - 51)
+	 */
+	public int[][] apply_forward_4x4(int[][] samples, int qp) {
+		int[][] temp = new int[4][4];
+		int[][] levels = new int[4][4];
+		
+		//Rows
+		for (int i = 0; i < 4; i++) {
+			int[] r = samples[i];
+			int s03 = r[0] + r[3];
+			int d03 = r[0] - r[3];
+			int s12 = r[1] + r[2];
+			int d12 = r[1] - r[2];
+			
+			temp[i][0] = s03 + s12;
+			temp[i][1] = (d03 << 1) + d12;
+			temp[i][2] = s03 - s12;
+			temp[i][3] = d03 - (d12 << 1);
+		}
+		
+		int qbits = 15 + qp / 6;
+		int f = (1 << qbits) / 3;
+		int[] MF = QUANT_MF[qp % 6];
+		
+		//Columns + quantization
+		for (int j = 0; j < 4; j++) {
+			int s03 = temp[0][j] + temp[3][j];
+			int d03 = temp[0][j] - temp[3][j];
+			int s12 = temp[1][j] + temp[2][j];
+			int d12 = temp[1][j] - temp[2][j];
+			
+			levels[0][j] = quantize(s03 + s12, MF[position_class(0, j)], f, qbits);
+			levels[1][j] = quantize((d03 << 1) + d12, MF[position_class(1, j)], f, qbits);
+			levels[2][j] = quantize(s03 - s12, MF[position_class(2, j)], f, qbits);
+			levels[3][j] = quantize(d03 - (d12 << 1), MF[position_class(3, j)], f, qbits);
+		}
+		
+		return levels;
+	}
+	
+	/*
+	 * Purpose: Rescale quantized coefficients and apply the inverse 4x4 integer core transform
+	 * Return Type: int[][] => Reconstructed samples
+	 * Params: int[][] levels => Quantized coefficients (4x4);
+	 * 			int qp => Quantization parameter (0 - 51)
+	 */
+	public int[][] apply_inverse_4x4(int[][] levels, int qp) {
+		int[][] temp = new int[4][4];
+		int[][] samples = new int[4][4];
+		int[] V = DEQUANT_V[qp % 6];
+		int shift = qp / 6;
+		
+		//Rescaling + rows
+		for (int i = 0; i < 4; i++) {
+			int w0 = (levels[i][0] * V[position_class(i, 0)]) << shift;
+			int w1 = (levels[i][1] * V[position_class(i, 1)]) << shift;
+			int w2 = (levels[i][2] * V[position_class(i, 2)]) << shift;
+			int w3 = (levels[i][3] * V[position_class(i, 3)]) << shift;
+			
+			int e0 = w0 + w2;
+			int e1 = w0 - w2;
+			int e2 = (w1 >> 1) - w3;
+			int e3 = w1 + (w3 >> 1);
+			
+			temp[i][0] = e0 + e3;
+			temp[i][1] = e1 + e2;
+			temp[i][2] = e1 - e2;
+			temp[i][3] = e0 - e3;
+		}
+		
+		//Columns
+		for (int j = 0; j < 4; j++) {
+			int e0 = temp[0][j] + temp[2][j];
+			int e1 = temp[0][j] - temp[2][j];
+			int e2 = (temp[1][j] >> 1) - temp[3][j];
+			int e3 = temp[1][j] + (temp[3][j] >> 1);
+			
+			samples[0][j] = (e0 + e3 + 32) >> 6;
+			samples[1][j] = (e1 + e2 + 32) >> 6;
+			samples[2][j] = (e1 - e2 + 32) >> 6;
+			samples[3][j] = (e0 - e3 + 32) >> 6;
+		}
+		
+		return samples;
+	}
+	
+	/*
+	 * Purpose: Apply the integer 2x2 transform (Hadamard butterflies) to the chroma of a 4x4 block
+	 * Return Type: int[][] => Quantized coefficients (same scale as the DCT-II coefficients)
+	 * Params: int[][] samples => Samples to transform (2x2);
+	 * 			int qp => Quantization parameter (0 - 51)
+	 * Note: The transform itself only uses additions and shifts, so every platform
+	 * 			produces the very same coefficients
+	 */
+	public int[][] apply_forward_2x2(int[][] samples, int qp) {
+		int s0 = samples[0][0] + samples[0][1];
+		int d0 = samples[0][0] - samples[0][1];
+		int s1 = samples[1][0] + samples[1][1];
+		int d1 = samples[1][0] - samples[1][1];
+		
+		//The butterflies scale by 2, so the step is doubled
+		int step = get_quantization_step_64(qp) << 1;
+		
+		int[][] coefficients = new int[2][2];
+		coefficients[0][0] = divide((s0 + s1) << 6, step);
+		coefficients[0][1] = divide((d0 + d1) << 6, step);
+		coefficients[1][0] = divide((s0 - s1) << 6, step);
+		coefficients[1][1] = divide((d0 - d1) << 6, step);
+		return coefficients;
+	}
+	
+	/*
+	 * Purpose: Rescale quantized coefficients and apply the inverse integer 2x2 transform
+	 * Return Type: int[][] => Reconstructed samples
+	 * Params: int[][] coefficients => Quantized coefficients (2x2);
+	 * 			int qp => Quantization parameter (0 - 51)
+	 */
+	public int[][] apply_inverse_2x2(int[][] coefficients, int qp) {
+		int step = get_quantization_step_64(qp);
+		int w00 = coefficients[0][0] * step;
+		int w01 = coefficients[0][1] * step;
+		int w10 = coefficients[1][0] * step;
+		int w11 = coefficients[1][1] * step;
+		
+		int s0 = w00 + w01;
+		int d0 = w00 - w01;
+		int s1 = w10 + w11;
+		int d1 = w10 - w11;
+		
+		//Result is (H * W * H) / 4 with W = level * 2 * step / 64
+		int[][] samples = new int[2][2];
+		samples[0][0] = (s0 + s1 + 64) >> 7;
+		samples[0][1] = (d0 + d1 + 64) >> 7;
+		samples[1][0] = (s0 - s1 + 64) >> 7;
+		samples[1][1] = (d0 - d1 + 64) >> 7;
+		return samples;
+	}
+	
+	/*
+	 * Purpose: Get the quantization step of a QP in 1/64 units
+	 * Return Type: int => Quantization step * 64
+	 * Params: int qp => Quantization parameter (0 - 51)
+	 */
+	private int get_quantization_step_64(int qp) {
+		return QSTEP_64[qp % 6] << (qp / 6);
+	}
+	
+	/*
+	 * Purpose: Get the position class of a coefficient for the quantization tables
+	 * Return Type: int => 0 = both even; 1 = both odd; 2 = mixed
+	 * Params: int i => Row of the coefficient;
+	 * 			int j => Column of the coefficient
+	 */
+	private int position_class(int i, int j) {
+		if ((i & 1) == 0 && (j & 1) == 0) {
+			return 0;
+		} else if ((i & 1) == 1 && (j & 1) == 1) {
+			return 1;
+		}
+		
+		return 2;
+	}
+	
+	/*
+	 * Purpose: Quantize a single coefficient ((|W| * MF + f) >> qbits)
+	 * Return Type: int => Quantized level
+	 * Params: int val => Coefficient;
+	 * 			int mf => Multiplication factor;
+	 * 			int f => Rounding offset;
+	 * 			int qbits => Shift
+	 */
+	private int quantize(int val, int mf, int f, int qbits) {
+		return val < 0 ? -((-val * mf + f) >> qbits) : (val * mf + f) >> qbits;
+	}
+	
+	/*
+	 * Purpose: Divide and round half away from zero
+	 * Return Type: int => Rounded quotient
+	 * Params: int val => Dividend;
+	 * 			int div => Divisor (positive)
+	 */
+	private int divide(int val, int div) {
+		return val < 0 ? -((-val + (div >> 1)) / div) : (val + (div >> 1)) / div;
+	}
+}
@@ -28,19 +28,58 @@ import Main.config;
 import Utils.ColorManager;
 import Utils.DCTObject;
 import Utils.PixelRaster;
+import Utils.PlanarFrame;
+import Utils.TransformMode;
 import Utils.YCbCrMakroBlock;
 
 public class MakroBlockEngine {
 	private ColorManager COLOR_MANAGER = new ColorManager();
+	private DCTEngine DCT_ENGINE = new DCTEngine();
+	private IntegerTransformEngine INTEGER_TRANSFORM_ENGINE = new IntegerTransformEngine();
+	private TransformMode TRANSFORM_MODE = config.TRANSFORM_MODE;
+	private int QP = config.DEFAULT_QP;
+	private boolean LUMA_TRANSFORM = true;
+	
+	public MakroBlockEngine() {}
+	
+	public void set_transform_mode(TransformMode mode) {
+		this.TRANSFORM_MODE = mode;
+	}
+	
+	public TransformMode get_transform_mode() {
+		return this.TRANSFORM_MODE;
+	}
+	
+	public void set_quantization_parameter(int qp) {
+		if (qp < config.MIN_QP || qp > config.MAX_QP) {
+			System.err.println("QP " + qp + " out of range! > Set QP to " + config.DEFAULT_QP);
+			qp = config.DEFAULT_QP;
+		}
+		
+		this.QP = qp;
+	}
+	
+	public int get_quantization_parameter() {
+		return this.QP;
+	}
+	
+	/*
+	 * Purpose: Set whether the luma is transformed or stored as raw samples
+	 * Return Type: void
+	 * Params: boolean transform => true = transform and quantize luma; false = raw luma (old files)
+	 */
+	public void set_luma_transform(boolean transform) {
+		this.LUMA_TRANSFORM = transform;
+	}
 	
 	/*
 	 * Purpose: Get a list of MakroBlocks out of an image
 	 * Return Type: ArrayList<MakroBlock> => MakroBlocks of the image
-	 * Params: PixelRaster img => Image from which the MB's should be get out of,
+	 * Params: PlanarFrame img => Image from which the MB's should be get out of,
 	 * 			int[][] edge => Edges and Textures in original frame;
 	 * 			int startSize => Size from which to start dividing down (STD::32x32)
 	 */
-	public ArrayList<YCbCrMakroBlock> get_makroblocks_from_image(PixelRaster img, int[][] edges, int startSize) {
+	public ArrayList<YCbCrMakroBlock> get_makroblocks_from_image(PlanarFrame img, int[][] edges, int startSize) {
 		if (img == null) {
 			System.err.println("Frame NULL, can't partition NULL!");
 			return null;
@@ -165,15 +204,6 @@ public class MakroBlockEngine {
 		return obj;
 	}
 
-	/*
-	 * Purpose: Determines the factor for DCT-II
-	 * Return Type: double => Pre factor
-	 * Params: int x => k, n, u or v of DCT-II
-	 */
-	private double step(int x) {
-		return x == 0 ? 1 / Math.sqrt(2) : 1;
-	}
-	
 	private ArrayList<DCTObject> apply_DCT(YCbCrMakroBlock block) {
 		ArrayList<DCTObject> objs = new ArrayList<DCTObject>(block.getSize() * block.getSize() / 16);
 		YCbCrMakroBlock[] blocks = block.splitToSmaller(4);
@@ -187,127 +217,146 @@ public class MakroBlockEngine {
 	
 	/*
 	 * Purpose: Apply the DCT-II to a single YCbCrMakroBlock with subsampling of 2x2 chroma
+	 * 			and quantize luma and chroma according to the QP
 	 * Return Type: DCTObject => Object with all coefficients
 	 * Params: YCbCrMakroBlock block => Block to process
+	 * Note: All matrices are indexed [x][y]
 	 */
 	private DCTObject apply_DCT_to_single_4x4_block(YCbCrMakroBlock block) {
-		double[][] CbCol = block.getChromaCb();
-		double[][] CrCol = block.getCromaCr();
+		int size = block.getSize();
+		int m = size / 2;
+		int[][] Y = new int[size][size];
+		int[][] Cb = new int[m][m];
+		int[][] Cr = new int[m][m];
 		
-		double[][] CbCo = new double[block.getSize() / 2][block.getSize() / 2];
-		double[][] CrCo = new double[block.getSize() / 2][block.getSize() / 2];
-
-		int m = block.getSize() / 2;
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				Y[x][y] = block.getYVal(x, y);
+			}
+		}
+		
+		for (int x = 0; x < m; x++) {
+			for (int y = 0; y < m; y++) {
+				Cb[x][y] = block.getChromaCb(x, y);
+				Cr[x][y] = block.getChromaCr(x, y);
+			}
+		}
 		
-		for (int v = 0; v < m; v++) {
-            for (int u = 0; u < m; u++) {
-            	double CbSum = 0;
-            	double CrSum = 0;
-            	
-                for (int x = 0; x < m; x++) {
-                    for (int y = 0; y < m; y++) {
-                        double cos1 = Math.cos(((double)(2 * x + 1) * (double)u * Math.PI) / (double)(2 * m));
-                        double cos2 = Math.cos(((double)(2 * y + 1) * (double)v * Math.PI) / (double)(2 * m)); 
-                        CbSum += CbCol[y][x] * cos1 * cos2;
-                        CrSum += CrCol[y][x] * cos1 * cos2;
-                    }
-                }
-                
-                CbCo[v][u] = Math.round(step(v) * step(u) * CbSum);
-                CrCo[v][u] = Math.round(step(v) * step(u) * CrSum);
-            }
-        }
+		int[][] YCo = null;
+		int[][] CbCo = null;
+		int[][] CrCo = null;
 		
-		return new DCTObject(block.getYValues(), CbCo, CrCo, block.getPosition());
+		if (this.TRANSFORM_MODE == TransformMode.INTEGER) {
+			YCo = this.INTEGER_TRANSFORM_ENGINE.apply_forward_4x4(Y, this.QP);
+			CbCo = this.INTEGER_TRANSFORM_ENGINE.apply_forward_2x2(Cb, this.QP);
+			CrCo = this.INTEGER_TRANSFORM_ENGINE.apply_forward_2x2(Cr, this.QP);
+		} else {
+			double qstep = this.DCT_ENGINE.get_quantization_step(this.QP);
+			YCo = this.DCT_ENGINE.apply_DCT(Y, qstep);
+			CbCo = this.DCT_ENGINE.apply_DCT(Cb, qstep);
+			CrCo = this.DCT_ENGINE.apply_DCT(Cr, qstep);
+		}
+		
+		return new DCTObject(YCo, CbCo, CrCo, block.getPosition());
 	}
 	
 	/*
-	 * Purpose: Apply the IDCT-II to a single YCbCrMakroBlock with subsampling of 2x2 chroma
-	 * Return Type: YCbCrMakroBlock => YCbCrMakroBlock with all DCTObject information
-	 * Params: DCTObject obj => Object to apply IDCT-II to
+	 * Purpose: Apply the IDCT-II to a single DCTObject and write the samples into a frame
+	 * Return Type: YCbCrMakroBlock => View of the reconstructed block in the frame
+	 * Params: DCTObject obj => Object to apply IDCT-II to;
+	 * 			PlanarFrame target => Frame to write the reconstructed samples into
 	 */
-	public YCbCrMakroBlock apply_IDCT(DCTObject obj) {
-		YCbCrMakroBlock block = new YCbCrMakroBlock(obj.getPosition(), obj.getSize());
-		block.setYValues(obj.getY());
-		int m = obj.getSize() / 2;
+	public YCbCrMakroBlock apply_IDCT(DCTObject obj, PlanarFrame target) {
+		YCbCrMakroBlock block = new YCbCrMakroBlock(target, obj.getPosition(), obj.getSize());
+		int size = obj.getSize();
+		int m = size / 2;
+		
+		if (this.TRANSFORM_MODE == TransformMode.INTEGER) {
+			int[][] Y = this.LUMA_TRANSFORM ? this.INTEGER_TRANSFORM_ENGINE.apply_inverse_4x4(obj.getY(), this.QP) : obj.getY();
+			int[][] Cb = this.INTEGER_TRANSFORM_ENGINE.apply_inverse_2x2(obj.getCbDCT(), this.QP);
+			int[][] Cr = this.INTEGER_TRANSFORM_ENGINE.apply_inverse_2x2(obj.getCrDCT(), this.QP);
+			
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					block.setYVal(x, y, Y[x][y]);
+				}
+			}
+			
+			for (int x = 0; x < m; x++) {
+				for (int y = 0; y < m; y++) {
+					block.setChroma(x, y, Cb[x][y], Cr[x][y]);
+				}
+			}
+			
+			return block;
+		}
+		
+		double qstep = this.DCT_ENGINE.get_quantization_step(this.QP);
+		double[][] Cb = this.DCT_ENGINE.apply_IDCT(obj.getCbDCT(), qstep);
+		double[][] Cr = this.DCT_ENGINE.apply_IDCT(obj.getCrDCT(), qstep);
+		
+		if (this.LUMA_TRANSFORM) {
+			double[][] Y = this.DCT_ENGINE.apply_IDCT(obj.getY(), qstep);
+			
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					block.setYVal(x, y, Y[x][y]);
+				}
+			}
+		} else {
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					block.setYVal(x, y, obj.getY()[x][y]);
+				}
+			}
+		}
 		
 		for (int x = 0; x < m; x++) {
 			for (int y = 0; y < m; y++) {
-				double CbSum = 0;
-				double CrSum = 0;
-				
-				for (int u = 0; u < m; u++) {
-					for (int v = 0; v < m; v++) {
-						double cos1 = Math.cos(((double)(2 * x + 1) * (double)u * Math.PI) / (double)(2 * m));
-                        double cos2 = Math.cos(((double)(2 * y + 1) * (double)v * Math.PI) / (double)(2 * m)); 
-                        CbSum += obj.getCbDCT()[u][v] * step(u) * step(v) * cos1 * cos2;
-                        CrSum += obj.getCrDCT()[u][v] * step(u) * step(v) * cos1 * cos2;
-					}
-				}
-				
-				block.setChroma(x, y, CbSum, CrSum);
+				block.setChroma(x, y, Cb[x][y], Cr[x][y]);
 			}
 		}
 
 		return block;
 	}
 	
+	/*
+	 * Purpose: Convert an RGB image into a planar YCbCr frame with 4:2:0 subsampling
+	 * Return Type: PlanarFrame => Converted frame
+	 * Params: PixelRaster img => Image to convert
+	 * Note: The chroma of a 2x2 area is the average of all pixels inside the image
+	 */
+	public PlanarFrame get_planar_frame(PixelRaster img) {
+		PlanarFrame frame = new PlanarFrame(img.getWidth(), img.getHeight());
+		this.COLOR_MANAGER.convert_ARGB_to_planes(img.getData(), frame);
+		return frame;
+	}
+	
+	/*
+	 * Purpose: Convert a planar YCbCr frame into an RGB image
+	 * Return Type: void
+	 * Params: PlanarFrame frame => Frame to convert;
+	 * 			PixelRaster target => Image to write into (same size as the frame)
+	 */
+	public void fill_raster(PlanarFrame frame, PixelRaster target) {
+		this.COLOR_MANAGER.convert_planes_to_ARGB(frame, target.getData());
+	}
+	
 	/*
 	 * Purpose: Get a single MakroBlock out of the whole image
-	 * Return Type: MakroBlock => Analyzed MakroBlock
+	 * Return Type: YCbCrMakroBlock => View of the MakroBlock
 	 * Params: Point position => Position from where to grab the MakroBlock;
-	 * 			PixelRaster img => Image from which the MakroBlock should be grabbed
+	 * 			PlanarFrame img => Image from which the MakroBlock should be grabbed;
+	 * 			int size => Size of the MakroBlock;
+	 * 			YCbCrMakroBlock blockToFill => View to reuse (NULL = create new view)
 	 */
-	public YCbCrMakroBlock get_single_makro_block(Point position, PixelRaster img, int size, YCbCrMakroBlock blockToFill) {
-		/*
-		 * Imagine the colors as a table:
-		 * +---+---+---+---+---+---+---+---+
-		 * | 0 | 1 | 2 | 3 | 4 | 5 | 6 | 7 | <- Column
-		 * +---+---+---+---+---+---+---+---+
-		 * | d | d | d | d | d | d | d | d | <- Data
-		 * +---+---+---+---+---+---+---+---+
-		 * | d | d | d | d | d | d | d | d |
-		 * +---+---+---+---+---+---+---+---+
-		 */
-		YCbCrMakroBlock block = null;
-		
-		if (blockToFill == null) {
-			block = new YCbCrMakroBlock(position, size);
-		} else {
-			block = blockToFill;
-			block.setPosition(position);
-			block.setSize(size);
-		}
-		
-		int maxX = img.getWidth();
-		int maxY = img.getHeight();
-		boolean setRestToNil = false;
-		
-		for (int y = 0; y < size; y++) {
-			if (y + position.y >= maxY || y + position.y < 0) {
-				block.setColor(0, y, 0, 0, 0, 255);
-				setRestToNil = true;
-			}
-			
-			int subSPosY = y / 2;
-			
-			for (int x = 0; x < size; x++) {
-				if (!setRestToNil) {
-					if (x + position.x >= maxX || x + position.x < 0) {
-						block.setColor(x, 0, 0, 0, 0, 255);
-						continue;
-					}
-					
-					int subSPosX = x / 2;
-					double[] YCbCr = this.COLOR_MANAGER.convert_RGB_to_YCbCr(img.getRGB(x + position.x, y + position.y));
-					block.setYVal(x, y, YCbCr[0]);
-					block.setChroma(subSPosX, subSPosY, YCbCr[1], YCbCr[2]);
-				} else {
-					block.setColor(x, y, 0, 0, 0, 255);
-				}
-			}
+	public YCbCrMakroBlock get_single_makro_block(Point position, PlanarFrame img, int size, YCbCrMakroBlock blockToFill) {
+		if (blockToFill == null || blockToFill.getFrame() != img) {
+			return new YCbCrMakroBlock(img, position, size);
 		}
 		
-		return block;
+		blockToFill.setPosition(position);
+		blockToFill.setSize(size);
+		return blockToFill;
 	}
 }
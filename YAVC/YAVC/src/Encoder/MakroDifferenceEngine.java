@@ -25,26 +25,28 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
-import Utils.PixelRaster;
+import Utils.CodecExecutor;
+import Utils.PlanarFrame;
 import Utils.YCbCrMakroBlock;
 
 public class MakroDifferenceEngine {
 	private MakroBlockEngine MAKRO_BLOCK_ENGINE = new MakroBlockEngine();
 	
+	public MakroDifferenceEngine() {}
+	
 	/*
 	 * Purpose: Get the differences between the MakroBlocks of two lists
 	 * Return Type: ArrayList<MakroBlocks> => List of differences
 	 * Params: ArrayList<YCbCrMakroBlock> list => List of MB's to compare with previous frame;
-	 * 			PixelRaster prevImg => Previous image to compare to
+	 * 			PlanarFrame prevFrame => Previous frame to compare to
 	 */
-	public ArrayList<YCbCrMakroBlock> get_MakroBlock_difference(ArrayList<YCbCrMakroBlock> list, PixelRaster prevImg) {
+	public ArrayList<YCbCrMakroBlock> get_MakroBlock_difference(ArrayList<YCbCrMakroBlock> list, PlanarFrame prevFrame) {
 		if (list == null) {
 			System.err.println("No Makroblocks to compare!");
 			return null;
-		} else if (prevImg == null) {
+		} else if (prevFrame == null) {
 			System.err.println("No reference for differenciating!");
 			return null;
 		}
@@ -52,8 +54,7 @@ public class MakroDifferenceEngine {
 		ArrayList<YCbCrMakroBlock> diffs = new ArrayList<YCbCrMakroBlock>();
 		ArrayList<Future<YCbCrMakroBlock>> fmbs = new ArrayList<Future<YCbCrMakroBlock>>();
 
-		int threads = Runtime.getRuntime().availableProcessors();
-		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ExecutorService executor = CodecExecutor.get_executor();
 		
 		try {
 			for (int i = 0; i < list.size(); i++) {
@@ -63,7 +64,7 @@ public class MakroDifferenceEngine {
 				
 				Callable<YCbCrMakroBlock> task = () -> {
 					YCbCrMakroBlock colors1 = list.get(index);
-					YCbCrMakroBlock colors2 = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(pos, prevImg, size, null);
+					YCbCrMakroBlock colors2 = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(pos, prevFrame, size, null);
 					
 					double sumY = 0;
 					double sumCb = 0;
@@ -71,12 +72,9 @@ public class MakroDifferenceEngine {
 					
 					for (int y = 0; y < size; y++) {
 						for (int x = 0; x < size; x++) {
-							double[] col1 = colors1.getReversedSubSampleColor(x, y);
-							double[] col2 = colors2.getReversedSubSampleColor(x, y);
-							
-							sumY += Math.abs(col1[0] - col2[0]);
-							sumCb += Math.abs(col1[1] - col2[1]);
-							sumCr += Math.abs(col1[2] - col2[2]);
+							sumY += Math.abs(colors1.getYVal(x, y) - colors2.getYVal(x, y));
+							sumCb += Math.abs(colors1.getCbVal(x, y) - colors2.getCbVal(x, y));
+							sumCr += Math.abs(colors1.getCrVal(x, y) - colors2.getCrVal(x, y));
 						}
 					}
 					
@@ -101,10 +99,7 @@ public class MakroDifferenceEngine {
 					e.printStackTrace();
 				}
 			}
-			
-			executor.shutdown();
 		} catch (Exception e) {
-			executor.shutdown();
 			e.printStackTrace();
 		}
 		
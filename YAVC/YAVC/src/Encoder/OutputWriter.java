@@ -27,37 +27,74 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
 
 import Main.config;
-import UI.Frame;
+import Utils.BitstreamWriter;
+import Utils.CodecExecutor;
 import Utils.ColorManager;
 import Utils.DCTObject;
+import Utils.EntropyEncoder;
+import Utils.FrameIndexEntry;
 import Utils.PixelRaster;
+import Utils.PlanarFrame;
 import Utils.Vector;
 import Utils.YCbCrMakroBlock;
 
 public class OutputWriter {
-	private File COMPRESS_DIR = null;
-	private Frame FRAME = null;
+	private File RESULT_FILE = null;
+	private FileChannel CHANNEL = null;
 	private ColorManager COLOR_MANAGER = new ColorManager();
-	private MakroBlockEngine MAKRO_BLOCK_ENGINE = new MakroBlockEngine();
-	private ArrayList<SequenceObject> QUEUE = new ArrayList<SequenceObject>(5);
+	private MakroBlockEngine MAKRO_BLOCK_ENGINE = null;
+	private BlockingQueue<SequenceObject> QUEUE = new ArrayBlockingQueue<SequenceObject>(config.WRITER_QUEUE_DEPTH);
+	private Object PROGRESS_LOCK = new Object();
+	private long QUEUED_FRAMES = 0;
+	private long BAKED_FRAMES = 0;
+	private boolean CLOSED = false;
 	
-	public OutputWriter(String path, Frame f) {
-		this.FRAME = f;
+	//Set once a frame could not be written; the container would be missing a frame, so it gets no index and trailer
+	private volatile boolean FAILED = false;
+	private Thread WRITER = null;
+	private Deflater DEFLATER = new Deflater();
+	private ByteBuffer DEFLATE_BUFFER = ByteBuffer.allocate(64 * 1024);
+	private long META_OFFSET = -1;
+	private ArrayList<FrameIndexEntry> INDEX = new ArrayList<FrameIndexEntry>();
+	private ConcurrentLinkedQueue<BitstreamWriter> FREE_BUFFERS = new ConcurrentLinkedQueue<BitstreamWriter>();
+	
+	//Throughput statistics of the serialization (worker threads) and writing (FileWriter) stage
+	private AtomicLong SERIALIZED_BYTES = new AtomicLong();
+	private AtomicLong SERIALIZE_NANOS = new AtomicLong();
+	private long WRITTEN_BYTES = 0;
+	private long WRITE_NANOS = 0;
+	
+	/*
+	 * The MakroBlockEngine has to be the one that runs the DCT-II,
+	 * so the reconstruction uses the same transform mode and QP.
+	 * All records are appended to <path>/YAVC-COMP.yavc while the frames finish.
+	 */
+	public OutputWriter(String path, MakroBlockEngine makroBlockEngine) {
+		this.MAKRO_BLOCK_ENGINE = makroBlockEngine;
 		
 		try {
-			this.COMPRESS_DIR = new File(path + "/YAVC-COMP");
-			this.COMPRESS_DIR.mkdir();
+			this.RESULT_FILE = new File(path + "/YAVC-COMP.yavc");
+			this.CHANNEL = FileChannel.open(this.RESULT_FILE.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			
+			ByteBuffer header = ByteBuffer.allocate(5);
+			header.putInt(config.CONTAINER_MAGIC);
+			header.put((byte)config.FORMAT_VERSION);
+			header.flip();
+			write_fully(header);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -66,272 +103,513 @@ public class OutputWriter {
 	}
 	
 	/*
-	 * Purpose: Adds an object to the writing queue
-	 * Return Type: void
+	 * Purpose: Adds an object to the writing queue (blocks while config.WRITER_QUEUE_DEPTH frames wait for the writer).
+	 * 			The frame gets serialized on the shared CodecExecutor, the FileWriter writes the results in queue order.
+	 * Return Type: boolean => true = queued; false = writer closed, failed or interrupted
 	 * Params: ArrayList<YCbCrMakroBlock> diffs => Differences between prev and cur frame;
-	 * 			ArrayList<Vector> vecs => Movement vectors of the the frame
+	 * 			ArrayList<Vector> vecs => Movement vectors of the the frame;
+	 * 			int timestamp => Presentation time of the frame (in frames of the frame rate)
 	 */
-	public void add_obj_to_queue(ArrayList<DCTObject> dct, ArrayList<Vector> vecs) {
+	public boolean add_obj_to_queue(ArrayList<DCTObject> dct, ArrayList<Vector> vecs, int timestamp) {
+		CompletableFuture<BitstreamWriter> payload = new CompletableFuture<BitstreamWriter>();
 		SequenceObject obj = new SequenceObject();
 		obj.setDifferences(dct);
 		obj.setVecs(vecs);
+		obj.setTimestamp(timestamp);
+		obj.setPayload(payload);
+		long frameNumber = 0;
+		
+		synchronized (this.PROGRESS_LOCK) {
+			if (this.CLOSED) {
+				System.err.println("OutputWriter is closed! > Skip frame");
+				return false;
+			} else if (this.FAILED) {
+				System.err.println("OutputWriter failed on a previous frame! > Skip frame");
+				return false;
+			}
+			
+			frameNumber = this.QUEUED_FRAMES++;
+		}
+		
+		try {
+			//Reserve the slot first, so at most config.WRITER_QUEUE_DEPTH frames are serialized ahead of the writer
+			this.QUEUE.put(obj);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			frame_baked();
+			System.err.println("Interrupted while waiting for the writer! > Skip frame");
+			return false;
+		}
+		
+		final long number = frameNumber;
+		CodecExecutor.get_executor().execute(() -> {
+			try {
+				payload.complete(serialize_frame(dct, vecs, number));
+			} catch (Exception e) {
+				payload.completeExceptionally(e);
+			}
+		});
+		
+		return true;
+	}
+	
+	/*
+	 * Purpose: Wait until every queued frame is handled by the writer
+	 * Return Type: boolean => true = all frames so far are written; false = a frame failed or interrupted
+	 * Params: void
+	 */
+	public boolean flush() {
+		synchronized (this.PROGRESS_LOCK) {
+			while (this.BAKED_FRAMES < this.QUEUED_FRAMES) {
+				try {
+					this.PROGRESS_LOCK.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
 		
-		this.QUEUE.add(obj);
+		return !this.FAILED;
+	}
+	
+	private void frame_baked() {
+		synchronized (this.PROGRESS_LOCK) {
+			this.BAKED_FRAMES++;
+			this.PROGRESS_LOCK.notifyAll();
+		}
 	}
 	
 	/*
 	 * Purpose: Prepare and write the metadata of the YAVC file
 	 * Return Type: void
 	 * Params: BufferedImage originalImage => First frame in the video
-	 * 			int frameNum => Number of frames in the video
+	 * 			int frameNum => Number of frames in the video;
+	 * 			int frameRateNumerator => Frames per frameRateDenominator seconds;
+	 * 			int frameRateDenominator => see frameRateNumerator
 	 */
-	public void bake_meta_data(PixelRaster originalImage, int frameNum) {
+	public void bake_meta_data(PixelRaster originalImage, int frameNum, int frameRateNumerator, int frameRateDenominator) {
 		if (originalImage == null) return;
 		
 		try {
 			String meta = "META["
 					+ "D[" + originalImage.getWidth() + "," + originalImage.getHeight() + "]"
 					+ "FC[" + frameNum + "]"
+					+ "TM[" + this.MAKRO_BLOCK_ENGINE.get_transform_mode() + "]"
+					+ "QP[" + this.MAKRO_BLOCK_ENGINE.get_quantization_parameter() + "]"
+					+ "FV[" + config.FORMAT_VERSION + "]"
+					+ "FR[" + frameRateNumerator + ":" + frameRateDenominator + "]"
 					+ "]";
 			
-			File metaFile = new File(this.COMPRESS_DIR.getAbsolutePath() + "/META.DESC");
-			metaFile.createNewFile();
-			
-			Files.write(Path.of(metaFile.getAbsolutePath()), meta.getBytes(StandardCharsets.UTF_8), StandardOpenOption.WRITE);
+			this.META_OFFSET = write_record(config.RECORD_META, ByteBuffer.wrap(meta.getBytes(StandardCharsets.UTF_8)));
 		} catch (Exception e) {
 			e.printStackTrace();
+			this.FAILED = true;
 		}
 	}
 	
 	/*
 	 * Purpose: Writes the first frame of the video into the YAVC file
+	 * 			(3 bytes RGB per pixel, row by row; the start frame is always opaque)
 	 * Return Type: void
-	 * Params: BufferedImage img => First frame
+	 * Params: BufferedImage img => First frame;
+	 * 			int timestamp => Presentation time of the frame (in frames of the frame rate)
 	 */
-	public void bake_start_frame(PixelRaster img) {
-		StringBuilder imgInChars = new StringBuilder();
-
-		for (int y = 0; y < img.getHeight(); y++) {
-			for (int x = 0; x < img.getWidth(); x++) {
-				imgInChars.append(img.getRGB(x, y) + ".");
-			}
+	public void bake_start_frame(PixelRaster img, int timestamp) {
+		byte[] rgb = new byte[img.getWidth() * img.getHeight() * 3];
+		int[] argb = img.getData();
+		
+		for (int i = 0, index = 0; i < rgb.length; index++) {
+			rgb[i++] = (byte)(argb[index] >> 16);
+			rgb[i++] = (byte)(argb[index] >> 8);
+			rgb[i++] = (byte)argb[index];
 		}
 		
 		try {
-			File startFrameFile = new File(this.COMPRESS_DIR.getAbsolutePath() + "/SF.YAVCF");
-			startFrameFile.createNewFile();
-			
-			Files.write(Path.of(startFrameFile.getAbsolutePath()), imgInChars.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.WRITE);
+			write_indexed_record(config.RECORD_START_FRAME, ByteBuffer.wrap(rgb), true, new int[0], timestamp);
 		} catch (Exception e) {
 			e.printStackTrace();
+			this.FAILED = true;
 		}
 	}
 	
 	/*
-	 * Purpose: Prepare and write a frame into the YAVC file without the "FIRST FRAME" importance
-	 * Return Type: void
-	 * Params: ArrayList<YCbCrMakroBlock> differences => The differences between the previous and current frame
+	 * Purpose: Serialize a frame without the "FIRST FRAME" importance (runs on worker threads, one buffer per frame)
+	 * 			Layout (format version 5, all elements entropy coded by the EntropyEncoder):
+	 * 			blockCount, lumaSize, chromaSize,
+	 * 			per block: position, Y, Cb, Cr coefficients (zig-zag scan, run / level, EOB),
+	 * 			hasVectors, [vectorCount, vectors]
+	 * Return Type: BitstreamWriter => Serialized frame (NULL = frame could not be serialized)
+	 * Params: ArrayList<DCTObject> DCTList => The DCT-II coefficients of the differences;
+	 * 			ArrayList<Vector> movementVectors => Calculated vectors of the frame (NULL = no vectors);
+	 * 			long frameNumber => Number of the frame (for error messages)
 	 */
 	private int outputFrames = 0;
 	
-	private File bake_frame(ArrayList<DCTObject> DCTList) {
+	private BitstreamWriter serialize_frame(ArrayList<DCTObject> DCTList, ArrayList<Vector> movementVectors, long frameNumber) {
 		if (DCTList == null) {
 			System.err.println("No DCT!");
 			return null;
 		}
 		
-		StringBuilder DCT = new StringBuilder();
-		DCT.append(config.DCT_DEF_S);
-
+		long start = System.nanoTime();
+		BitstreamWriter buffer = this.FREE_BUFFERS.poll();
+		
+		if (buffer == null) {
+			buffer = new BitstreamWriter(64 * 1024);
+		}
+		
+		buffer.reset();
+		EntropyEncoder out = new EntropyEncoder(buffer);
+		
+		int lumaSize = DCTList.size() == 0 ? 0 : DCTList.get(0).getY().length;
+		int chromaSize = DCTList.size() == 0 ? 0 : DCTList.get(0).getCbDCT().length;
+		
+		out.encode_count(DCTList.size());
+		out.encode_count(lumaSize);
+		out.encode_count(chromaSize);
+		
 		for (DCTObject dct : DCTList) {
-			StringBuilder CbCoStr = new StringBuilder();
-			StringBuilder CrCoStr = new StringBuilder();
-			StringBuilder YCoStr = new StringBuilder();
-			
-			for (int y = 0; y < dct.getCbDCT().length; y++) {
-				for (int x = 0; x < dct.getCbDCT()[y].length; x++) {
-					double Cb = dct.getCbDCT()[y][x];
-					double Cr = dct.getCrDCT()[y][x];
-					
-					char CbC = shift_DCT_bits(Cb);
-					char CrC = shift_DCT_bits(Cr);
-					
-					CbCoStr.append(CbC);
-					CrCoStr.append(CrC);
-				}
-				
-				if (y + 1 < dct.getCbDCT().length) {
-					CbCoStr.append(config.DCT_MATRIX_NL_DEF);
-					CrCoStr.append(config.DCT_MATRIX_NL_DEF);
-				}
-			}
-			
-			CbCoStr.append(config.DCT_CB_END_DEF);
-			CrCoStr.append(config.DCT_CR_END_DEF);
-			
-			for (int y = 0; y < dct.getY().length; y++) {
-				for (int x = 0; x < dct.getY()[y].length; x++) {
-					YCoStr.append((char)shift_DCT_bits(dct.getY()[y][x]));
-				}
-				
-				if (y + 1 < dct.getY().length) {
-					YCoStr.append(config.DCT_MATRIX_NL_DEF);
-				}
+			if (dct.getY().length != lumaSize || dct.getCbDCT().length != chromaSize) {
+				System.err.println("Mixed DCT-II sizes in one frame (" + frameNumber + ")! > Abort");
+				this.FREE_BUFFERS.add(buffer);
+				return null;
 			}
 			
-			YCoStr.append(config.DCT_Y_END_DEF);
-			DCT.append(YCoStr);
-			DCT.append(CbCoStr);
-			DCT.append(CrCoStr);
-			DCT.append((char)(dct.getPosition().x + config.RESERVED_TABLE_SIZE));
-			DCT.append((char)(dct.getPosition().y + + config.RESERVED_TABLE_SIZE));
-			DCT.append(config.DCT_POS_END_DEF);
+			out.encode_block_position(dct.getPosition().x, dct.getPosition().y);
+			out.encode_block(true, dct.getY());
+			out.encode_block(false, dct.getCbDCT());
+			out.encode_block(false, dct.getCrDCT());
 		}
 		
-		File frameFile = new File(this.COMPRESS_DIR.getAbsolutePath() + "/F_" + outputFrames++ + ".YAVCF");
-
+		bake_vectors(out, movementVectors);
+		out.finish();
+		
+		this.SERIALIZED_BYTES.addAndGet(buffer.size());
+		this.SERIALIZE_NANOS.addAndGet(System.nanoTime() - start);
+		return buffer;
+	}
+	
+	/*
+	 * Purpose: Write a serialized frame into the YAVC file and hand its buffer back for the next frames (FileWriter only)
+	 * Return Type: void
+	 * Params: BitstreamWriter buffer => Serialized frame;
+	 * 			ArrayList<Vector> movementVectors => Calculated vectors of the frame (NULL = no vectors);
+	 * 			int timestamp => Presentation time of the frame
+	 */
+	private void bake_frame(BitstreamWriter buffer, ArrayList<Vector> movementVectors, int timestamp) {
+		long start = System.nanoTime();
+		
 		try {
-			frameFile.createNewFile();
-			Files.write(Path.of(frameFile.getAbsolutePath()), DCT.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.WRITE);
+			write_indexed_record(config.RECORD_FRAME, buffer.to_byte_buffer(), movementVectors == null, get_references(movementVectors), timestamp);
+			outputFrames++;
+			this.WRITTEN_BYTES += buffer.size();
 		} catch (Exception e) {
 			e.printStackTrace();
+			System.err.println("Could not write frame " + outputFrames + "! > Abort");
+			this.FAILED = true;
 		}
 		
-		return frameFile;
+		this.WRITE_NANOS += System.nanoTime() - start;
+		this.FREE_BUFFERS.add(buffer);
 	}
 	
-	private char shift_DCT_bits(double val) {
-		/*
-		 * UTF-8 provides 16 Bits per char.
-		 * 00000000 00000000
-		 * 
-		 * 1) If the number is negative, set the 14th Bit to 1
-		 * 00100000 00000000
-		 * 
-		 * 2) Else let it like it is and fill up the 14 prior Bits with data
-		 */
-		
-		if (val < 0) {
-			return (char)(1 << 14 | ((int)Math.abs(val) + config.RESERVED_TABLE_SIZE) & 0xFFF);
-		}
-		
-		return (char)((int)Math.abs(val) + config.RESERVED_TABLE_SIZE);
+	/*
+	 * Purpose: Append a record ({type (1 byte)} {length (4 bytes)} {raw length (4 bytes)} {deflated payload}) to the container
+	 * 			Frames are entropy coded already and are stored as {type (1 byte)} {length (4 bytes)} {payload}
+	 * Return Type: long => Offset of the record in the container
+	 * Params: byte type => Type of the record (config.RECORD_*);
+	 * 			ByteBuffer payload => Content of the record
+	 */
+	private synchronized long write_record(byte type, ByteBuffer payload) throws IOException {
+		long offset = this.CHANNEL.position();
+		int rawLength = payload.remaining();
+		
+		if (type == config.RECORD_FRAME) {
+			ByteBuffer header = ByteBuffer.allocate(5);
+			header.put(type);
+			header.putInt(rawLength);
+			header.flip();
+			
+			write_fully(header);
+			write_fully(payload);
+			return offset;
+		}
+		
+		this.DEFLATER.reset();
+		this.DEFLATER.setInput(payload);
+		this.DEFLATER.finish();
+		this.DEFLATE_BUFFER.clear();
+		
+		while (!this.DEFLATER.finished()) {
+			if (!this.DEFLATE_BUFFER.hasRemaining()) {
+				ByteBuffer larger = ByteBuffer.allocate(this.DEFLATE_BUFFER.capacity() * 2);
+				this.DEFLATE_BUFFER.flip();
+				larger.put(this.DEFLATE_BUFFER);
+				this.DEFLATE_BUFFER = larger;
+			}
+			
+			this.DEFLATER.deflate(this.DEFLATE_BUFFER);
+		}
+		
+		this.DEFLATE_BUFFER.flip();
+		
+		ByteBuffer header = ByteBuffer.allocate(9);
+		header.put(type);
+		header.putInt(this.DEFLATE_BUFFER.remaining() + 4);
+		header.putInt(rawLength);
+		header.flip();
+		
+		write_fully(header);
+		write_fully(this.DEFLATE_BUFFER);
+		return offset;
 	}
 	
 	/*
-	 * Purpose: Write calcuated vectors into the YAVC file
+	 * Purpose: Append a frame record and add it to the frame index
 	 * Return Type: void
-	 * Params: ArrayList<Vector> movementVectors => Calculated vectors of the current frame
-	 * 			File frameFile => File to which the vectors correspond to
+	 * Params: byte type => Type of the record (config.RECORD_*);
+	 * 			ByteBuffer payload => Content of the record;
+	 * 			boolean intra => true = frame can be decoded without other frames;
+	 * 			int[] references => Distances of the referenced frames;
+	 * 			int timestamp => Presentation time of the frame
+	 */
+	private synchronized void write_indexed_record(byte type, ByteBuffer payload, boolean intra, int[] references, int timestamp) throws IOException {
+		long offset = write_record(type, payload);
+		this.INDEX.add(new FrameIndexEntry(offset, (int)(this.CHANNEL.position() - offset), intra, references, timestamp));
+	}
+	
+	private void write_fully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.CHANNEL.write(buffer);
+		}
+	}
+	
+	/*
+	 * Purpose: Collect the frames a predicted frame depends on
+	 * Return Type: int[] => Distances of the referenced frames (1 = previous frame); empty for intra frames
+	 * Params: ArrayList<Vector> movementVectors => Vectors of the frame (NULL = intra frame)
 	 */
-	private void bake_vectors(ArrayList<Vector> movementVectors, File frameFile) {
+	private int[] get_references(ArrayList<Vector> movementVectors) {
 		if (movementVectors == null) {
-			return;
+			return new int[0];
 		}
 		
-		try {
-			StringBuilder vecRes = new StringBuilder(movementVectors.size() * 2);
-			vecRes.append(config.V_DEF_S);
-			
-			int size = movementVectors.size();
-			vecRes.append((char)(size >> 16));
-			vecRes.append((char)(size & 0xFFFF));
+		//The differences are always drawn over the previous frame
+		boolean[] used = new boolean[config.MAX_BACK_REF + 1];
+		used[1] = true;
+		
+		for (Vector vec : movementVectors) {
+			int ref = vec.getReferenceDrawback();
 			
-			for (Vector vec : movementVectors) {
-				int refAndSizeShift = ((vec.getReferenceDrawback() & 0xFF) << 8 | (vec.getReferenceSize() & 0xFF));
-				
-				char sPointX = (char)(vec.getStartingPoint().x + config.RESERVED_TABLE_SIZE);
-				char sPointY = (char)(vec.getStartingPoint().y + config.RESERVED_TABLE_SIZE);
-				char spanX = shift_vec_span(vec.getSpanX());
-				char spanY = shift_vec_span(vec.getSpanY());
-				char refAndSize = (char)((refAndSizeShift & 0xFFFF) + config.RESERVED_TABLE_SIZE);
-
-				vecRes.append(sPointX);
-				vecRes.append(sPointY);
-				vecRes.append(spanX);
-				vecRes.append(spanY);
-				vecRes.append(refAndSize);
+			if (ref > 0 && ref < used.length) {
+				used[ref] = true;
+			}
+		}
+		
+		int count = 0;
+		
+		for (boolean u : used) {
+			count += u ? 1 : 0;
+		}
+		
+		int[] refs = new int[count];
+		
+		for (int i = 1, index = 0; i < used.length; i++) {
+			if (used[i]) {
+				refs[index++] = i;
 			}
-			
-			Files.write(Path.of(frameFile.getAbsolutePath()), vecRes.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
+		
+		return refs;
 	}
 	
-	private char shift_vec_span(int span) {
-		if (span < 0) {
-			return (char)((1 << 14) | ((Math.abs(span) + config.RESERVED_TABLE_SIZE) & 0xFFF));
+	/*
+	 * Purpose: Write calcuated vectors into the frame
+	 * Return Type: void
+	 * Params: EntropyEncoder out => Frame that is currently written;
+	 * 			ArrayList<Vector> movementVectors => Calculated vectors of the current frame
+	 */
+	private void bake_vectors(EntropyEncoder out, ArrayList<Vector> movementVectors) {
+		out.encode_flag(movementVectors != null);
+		
+		if (movementVectors == null) {
+			return;
 		}
 		
-		return (char)(span + config.RESERVED_TABLE_SIZE);
+		out.encode_count(movementVectors.size());
+		
+		for (Vector vec : movementVectors) {
+			out.encode_vector(vec);
+		}
 	}
 	
 	/*
-	 * Purpose: Starts a Thread for writing all files (pauses if queue is clear)
+	 * Purpose: Starts a Thread for writing all files in queue order (blocks while the queue is empty or the next frame is serialized, stops at the end marker)
 	 * Return Type: void
 	 * Params: void
 	 */
 	private void start_baking_queue() {
-		Thread writer = new Thread(() -> {
-			while (FRAME.canWriterWrite()) {
-				if (QUEUE.size() == 0) {
-					try {
-						Thread.sleep(500);
-					} catch (Exception e) {
-						e.printStackTrace();
-					}
-					
-					continue;
+		this.WRITER = new Thread(() -> {
+			while (true) {
+				SequenceObject obj = null;
+				
+				try {
+					obj = QUEUE.take();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+					return;
 				}
 				
-				SequenceObject obj = QUEUE.get(0);
-				File out = bake_frame(obj.getDCT());
-
-				if (obj.getVecs() != null) {
-					bake_vectors(obj.getVecs(), out);
+				if (obj.isEnd()) {
+					return;
+				}
+				
+				try {
+					//Waiting for the oldest frame is the reorder stage: later frames may already be done
+					BitstreamWriter payload = obj.getPayload().get();
+					
+					if (payload == null) {
+						System.err.println("Frame " + outputFrames + " could not be serialized! > Abort");
+						this.FAILED = true;
+					} else if (this.FAILED) {
+						//A later frame would take the place of the missing one
+						this.FREE_BUFFERS.add(payload);
+					} else {
+						bake_frame(payload, obj.getVecs(), obj.getTimestamp());
+					}
+				} catch (Exception e) {
+					e.printStackTrace();
+					System.err.println("Frame " + outputFrames + " could not be serialized! > Abort");
+					this.FAILED = true;
 				}
 				
-				QUEUE.remove(0);
+				frame_baked();
 			}
 		});
 		
-		writer.setName("FileWriter");
-		writer.start();
+		this.WRITER.setName("FileWriter");
+		this.WRITER.start();
 	}
 	
 	/*
-	 * Purpose: Compress the compressed result even more (using ZIP).
-	 * 			File to be compressed is the file that was set during runtime.
-	 * Return Type: void
+	 * Purpose: Stop accepting frames, wait until all queued frames are written and finish the container with the trailer
+	 * 			(a failed container gets no index and trailer, so it is never taken for a complete file)
+	 * Return Type: boolean => true = all queued frames, the index and the trailer are written; false = the file is incomplete
 	 * Params: void
 	 */
-	public void compress_result() {
+	public boolean close() {
+		synchronized (this.PROGRESS_LOCK) {
+			if (this.CLOSED) {
+				return get_result_file() != null;
+			}
+			
+			this.CLOSED = true;
+		}
+		
 		try {
-			FileOutputStream fos = new FileOutputStream(this.COMPRESS_DIR.getAbsolutePath() + ".yavc");
-	        ZipOutputStream zipOut = new ZipOutputStream(fos);
-	        
-	        for (File f : this.COMPRESS_DIR.listFiles()) {
-	        	zipOut.putNextEntry(new ZipEntry(f.getName()));
-	        	
-	        	FileInputStream fis = new FileInputStream(f);
-	        	byte[] bytes = new byte[4096];
-		        int length;
-	        	
-		        while ((length = fis.read(bytes)) >= 0) {
-		        	zipOut.write(bytes, 0, length);
-		        }
-	        	
-		        fis.close();
-	        	zipOut.closeEntry();
-	        }
-	        
-	        zipOut.closeEntry();
-	        zipOut.close();
-	        this.COMPRESS_DIR.delete();
-		} catch (Exception e) {
+			this.QUEUE.put(SequenceObject.create_end_marker());
+			this.WRITER.join();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			Thread.currentThread().interrupt();
+			this.FAILED = true;
+		}
+		
+		if (this.CHANNEL == null || !this.CHANNEL.isOpen()) {
+			this.FAILED = true;
+			return false;
+		}
+		
+		try {
+			if (this.FAILED) {
+				System.err.println("Not all frames could be written, " + this.RESULT_FILE.getAbsolutePath() + " is incomplete! > Abort");
+				this.CHANNEL.close();
+				this.DEFLATER.end();
+				this.FREE_BUFFERS.clear();
+				return false;
+			}
+			
+			long indexOffset = bake_index();
+			
+			//The trailer is not deflated, so readers find it at the end of the file
+			ByteBuffer trailer = ByteBuffer.allocate(config.TRAILER_SIZE);
+			trailer.put(config.RECORD_TRAILER);
+			trailer.putInt(12);
+			trailer.putInt(this.outputFrames);
+			trailer.putLong(indexOffset);
+			trailer.flip();
+			
+			write_fully(trailer);
+			this.CHANNEL.close();
+			this.DEFLATER.end();
+		} catch (IOException e) {
 			e.printStackTrace();
+			this.FAILED = true;
 		}
+		
+		this.FREE_BUFFERS.clear();
+		print_throughput();
+		return !this.FAILED;
+	}
+	
+	/*
+	 * Purpose: Print the throughput of the serialization and writing stage
+	 * 			(Serialization time is summed over all worker threads)
+	 * Return Type: void
+	 * Params: void
+	 */
+	private void print_throughput() {
+		System.out.printf("Serialization: %.2f MB in %.1f ms (%.1f MB/s per thread)%n", to_MB(this.SERIALIZED_BYTES.get()), this.SERIALIZE_NANOS.get() / 1e6, to_MB_per_second(this.SERIALIZED_BYTES.get(), this.SERIALIZE_NANOS.get()));
+		System.out.printf("Writing: %.2f MB in %.1f ms (%.1f MB/s)%n", to_MB(this.WRITTEN_BYTES), this.WRITE_NANOS / 1e6, to_MB_per_second(this.WRITTEN_BYTES, this.WRITE_NANOS));
+	}
+	
+	private double to_MB(long bytes) {
+		return bytes / (1024.0 * 1024.0);
+	}
+	
+	private double to_MB_per_second(long bytes, long nanos) {
+		return nanos == 0 ? 0 : to_MB(bytes) / (nanos / 1e9);
+	}
+	
+	/*
+	 * Purpose: Write the frame index (start frame = entry 0, then all frames in order)
+	 * 			Layout: long metaOffset, varint entryCount,
+	 * 			per entry: long offset, varint size, byte type (0 = intra, 1 = predicted), varint referenceCount, varint references,
+	 * 			then per entry: varint timestamp (optional; older readers stop after the entries)
+	 * Return Type: long => Offset of the index record
+	 * Params: void
+	 */
+	private long bake_index() throws IOException {
+		BitstreamWriter out = new BitstreamWriter(this.INDEX.size() * 16 + 16);
+		out.write_long(this.META_OFFSET);
+		out.write_varint(this.INDEX.size());
+		
+		for (FrameIndexEntry entry : this.INDEX) {
+			out.write_long(entry.getOffset());
+			out.write_varint(entry.getSize());
+			out.write_byte(entry.isIntra() ? 0 : 1);
+			out.write_varint(entry.getReferences().length);
+			
+			for (int ref : entry.getReferences()) {
+				out.write_varint(ref);
+			}
+		}
+		
+		for (FrameIndexEntry entry : this.INDEX) {
+			out.write_varint(entry.getTimestamp());
+		}
+		
+		return write_record(config.RECORD_INDEX, out.to_byte_buffer());
+	}
+	
+	/*
+	 * Purpose: Get the written YAVC file
+	 * Return Type: File => YAVC file (NULL if it couldn't be created or a frame could not be written)
+	 * Params: void
+	 */
+	public File get_result_file() {
+		return this.CHANNEL == null || this.FAILED ? null : this.RESULT_FILE;
 	}
 	
 	public PixelRaster reconstruct_DCT_image(ArrayList<DCTObject> objs, PixelRaster img) {
@@ -343,9 +621,10 @@ public class OutputWriter {
 		}
 		
 		PixelRaster render = img;
+		PlanarFrame planes = new PlanarFrame(img.getWidth(), img.getHeight());
 		
 		for (DCTObject obj : objs) {
-			YCbCrMakroBlock block = this.MAKRO_BLOCK_ENGINE.apply_IDCT(obj);
+			YCbCrMakroBlock block = this.MAKRO_BLOCK_ENGINE.apply_IDCT(obj, planes);
 			
 			for (int y = 0; y < block.getSize(); y++) {
 				for (int x = 0; x < block.getSize(); x++) {
@@ -354,7 +633,7 @@ public class OutputWriter {
 						continue;
 					}
 					
-					int col = this.COLOR_MANAGER.convert_YCbCr_to_RGB(block.getReversedSubSampleColor(x, y)).getRGB();
+					int col = this.COLOR_MANAGER.convert_YCbCr_to_ARGB(block.getYVal(x, y), block.getCbVal(x, y), block.getCrVal(x, y));
 					
 					if (block.getAVal(x, y) == 1.0) {
 						continue;
@@ -373,13 +652,14 @@ public class OutputWriter {
 	 * 			DEBUGGING ONLY!
 	 * Return Type: void
 	 * Params: BufferedImage org => previous build frame;
+	 * 			ArrayList<PlanarFrame> refs => Cached reference frames;
 	 * 			ArrayList<MakroBlock> diffs => Differencs to the prev img;
 	 * 			ArrayList<Vector> vecs => Vectors from the differences;
 	 * 			File outputFile => File to which to write (DIR)
 	 */
 	public int output = 0;
 	
-	public BufferedImage build_Frame(PixelRaster org, ArrayList<PixelRaster> refs, ArrayList<YCbCrMakroBlock> diffs, ArrayList<Vector> vecs, int diff) {
+	public BufferedImage build_Frame(PixelRaster org, ArrayList<PlanarFrame> refs, ArrayList<YCbCrMakroBlock> diffs, ArrayList<Vector> vecs, int diff) {
 		BufferedImage img = new BufferedImage(org.getWidth(), org.getHeight(), BufferedImage.TYPE_INT_ARGB);
 		BufferedImage img_v = new BufferedImage(org.getWidth(), org.getHeight(), BufferedImage.TYPE_INT_ARGB);
 		
@@ -395,7 +675,7 @@ public class OutputWriter {
 						continue;
 					}
 					
-					int col = this.COLOR_MANAGER.convert_YCbCr_to_RGB(block.getReversedSubSampleColor(x, y)).getRGB();
+					int col = this.COLOR_MANAGER.convert_YCbCr_to_ARGB(block.getYVal(x, y), block.getCbVal(x, y), block.getCrVal(x, y));
 					
 					if (block.getAVal(x, y) == 1.0) {
 						continue;
@@ -408,8 +688,8 @@ public class OutputWriter {
 		
 		if (vecs != null) {
 			for (Vector vec : vecs) {
-				PixelRaster s = refs.get(refs.size() - vec.getReferenceDrawback());
-				YCbCrMakroBlock cols = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(vec.getStartingPoint(), s, vec.getReferenceSize(), null);
+				PlanarFrame ref = refs.get(refs.size() - vec.getReferenceDrawback());
+				YCbCrMakroBlock cols = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(vec.getStartingPoint(), ref, vec.getReferenceSize(), null);
 				int size = vec.getReferenceSize();
 				
 				for (int y = 0; y < size; y++) {
@@ -428,7 +708,7 @@ public class OutputWriter {
 							continue;
 						}
 						
-						int color = this.COLOR_MANAGER.convert_YCbCr_to_RGB(cols.getReversedSubSampleColor(x, y)).getRGB();
+						int color = this.COLOR_MANAGER.convert_YCbCr_to_ARGB(cols.getYVal(x, y), cols.getCbVal(x, y), cols.getCrVal(x, y));
 						
 						img_v.setRGB(vecEndX + x, vecEndY + y, color);
 					}
@@ -24,6 +24,8 @@ package Encoder;
 import java.awt.Dimension;
 
 public class Scene {
+	public Scene() {}
+	
 	/*
 	 * Purpose: Detect whether the scene has changed / shot has changed between two images
 	 * Return Type: boolean => true = scene changes; false = scene almost the same
@@ -22,13 +22,35 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 package Encoder;
 
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
+import Utils.BitstreamWriter;
 import Utils.DCTObject;
 import Utils.Vector;
 
 public class SequenceObject {
 	private ArrayList<DCTObject> dct = null;
 	private ArrayList<Vector> vecs = null;
+	private Future<BitstreamWriter> payload = null;
+	private int timestamp = 0;
+	private boolean end = false;
+	
+	public SequenceObject() {}
+	
+	/*
+	 * Purpose: Create the marker that tells the file writer that no more frames follow
+	 * Return Type: SequenceObject => End marker
+	 * Params: void
+	 */
+	public static SequenceObject create_end_marker() {
+		SequenceObject marker = new SequenceObject();
+		marker.end = true;
+		return marker;
+	}
+	
+	public boolean isEnd() {
+		return end;
+	}
 	
 	public ArrayList<DCTObject> getDCT() {
 		return dct;
@@ -42,4 +64,16 @@ public class SequenceObject {
 	public void setVecs(ArrayList<Vector> vecs) {
 		this.vecs = vecs;
 	}
+	public Future<BitstreamWriter> getPayload() {
+		return payload;
+	}
+	public void setPayload(Future<BitstreamWriter> payload) {
+		this.payload = payload;
+	}
+	public int getTimestamp() {
+		return timestamp;
+	}
+	public void setTimestamp(int timestamp) {
+		this.timestamp = timestamp;
+	}
 }
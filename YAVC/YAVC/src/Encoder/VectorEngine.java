@@ -30,24 +30,25 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
-import Utils.PixelRaster;
+import Utils.CodecExecutor;
+import Utils.PlanarFrame;
 import Utils.Vector;
 import Utils.YCbCrMakroBlock;
 
 public class VectorEngine {
-	private MakroBlockEngine MAKRO_BLOCK_ENGINE = new MakroBlockEngine();
+	public VectorEngine() {}
+	
 	/*
 	 * Purpose: Get the MovementVectors between two frames and removes a match from the differences
 	 * Return Type: ArrayList<Vector> => Movement vectors
-	 * Params: ArrayList<PixelRaster> refs => Reference frames;
+	 * Params: ArrayList<PlanarFrame> refs => Reference frames (already converted to YCbCr);
 	 * 			ArrayList<YCbCrMakroBlock> diffs => Differences from the current to the previous frame;
 	 * 			int maxSADTolerance => Max SAD tolerance;
 	 * 			int colors => Amount of colors in an image;
 	 */
-	public ArrayList<Vector> calculate_movement_vectors(ArrayList<PixelRaster> refs, ArrayList<YCbCrMakroBlock> diff, int maxSADTolerance, int colors) {
+	public ArrayList<Vector> calculate_movement_vectors(ArrayList<PlanarFrame> refs, ArrayList<YCbCrMakroBlock> diff, int maxSADTolerance, int colors) {
 		if (refs == null) {
 			System.err.println("Computing movement without reference impossible! > abort");
 			return null;
@@ -56,9 +57,8 @@ public class VectorEngine {
 			return null;
 		}
 		
-		int threads = Runtime.getRuntime().availableProcessors();
 		final int maxGuesses = refs.size();
-		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ExecutorService executor = CodecExecutor.get_executor();
 		
 		init_sad_values(colors);
 		
@@ -114,11 +114,8 @@ public class VectorEngine {
 					e.printStackTrace();
 				}
 			}
-			
-			executor.shutdown();
 		} catch (Exception e) {
 			e.printStackTrace();
-			executor.shutdown();
 		}
 		
 		return vectors;
@@ -149,7 +146,7 @@ public class VectorEngine {
 	 * Purpose: Search the most equal MakroBlock from the previous frame using Three-Step-Search
 	 * Return Type: YCbCrMakroBlock => Most similar MakroBlock
 	 * Params: YCbCrMakroBlock blockToBeSearched => MakroBlock to be matched in the previous frame;
-	 * 			PixelRaster prevFrame => Image of the previous frame;
+	 * 			PlanarFrame prevFrame => Image of the previous frame;
 	 * 			int maxSADTolerance => Max tolerance of the SAD
 	 */
 	private double SAD_4x4_BLOCK = 0;
@@ -157,9 +154,9 @@ public class VectorEngine {
 	private double SAD_16x16_BLOCK = 0;
 	private double SAD_32x32_BLOCK = 0;
 	
-	private YCbCrMakroBlock get_most_equal_MakroBlock(YCbCrMakroBlock blockToBeSearched, PixelRaster prevFrame, int maxSADTolerance) {
-		YCbCrMakroBlock mostEqualBlock = null;
-		YCbCrMakroBlock cachedBlock = null;
+	private YCbCrMakroBlock get_most_equal_MakroBlock(YCbCrMakroBlock blockToBeSearched, PlanarFrame prevFrame, int maxSADTolerance) {
+		PlanarFrame searchedFrame = blockToBeSearched.getFrame();
+		Point searchedPos = blockToBeSearched.getPosition();
 		HashSet<Point> set = new HashSet<Point>();
 		int searchWindow = 64; //NEVER ABOVE 64 (BIGGER THAN 1 Byte for range and high computational complexity)
 		int blockSize = blockToBeSearched.getSize();
@@ -172,6 +169,7 @@ public class VectorEngine {
 		
 		int step = 4;
 		Point initPos = new Point(0, 0);
+		Point bestPos = null;
 		double lowestSAD = Double.MAX_VALUE;
 		
 		while (step > 1) {
@@ -188,13 +186,11 @@ public class VectorEngine {
 				}
 				
 				set.add(p);
-				cachedBlock = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(p, prevFrame, blockSize, cachedBlock);
-				double sad = get_SAD_of_colors(cachedBlock, blockToBeSearched);
+				double sad = get_SAD_of_planes(prevFrame, p.x, p.y, searchedFrame, searchedPos.x, searchedPos.y, blockSize);
 				
 				if (sad < lowestSAD) {
 					lowestSAD = sad;
-					mostEqualBlock = cachedBlock;
-					mostEqualBlock.setSAD(sad);
+					bestPos = p;
 					initPos = p;
 				}
 			}
@@ -222,16 +218,21 @@ public class VectorEngine {
 				continue;
 			}
 			
-			cachedBlock = this.MAKRO_BLOCK_ENGINE.get_single_makro_block(p, prevFrame, blockSize, cachedBlock);
-			double sad = get_SAD_of_colors(cachedBlock, blockToBeSearched);
+			double sad = get_SAD_of_planes(prevFrame, p.x, p.y, searchedFrame, searchedPos.x, searchedPos.y, blockSize);
 			
 			if (sad < lowestSAD) {
 				lowestSAD = sad;
-				mostEqualBlock = cachedBlock;
-				mostEqualBlock.setSAD(sad);
+				bestPos = p;
 			}
 		}
 		
+		if (bestPos == null) {
+			return null;
+		}
+		
+		YCbCrMakroBlock mostEqualBlock = new YCbCrMakroBlock(prevFrame, bestPos, blockSize);
+		mostEqualBlock.setSAD(lowestSAD);
+		
 		switch (blockSize) {
 		case 32:
 			//Low filtering (Reduce distortion)
@@ -282,38 +283,103 @@ public class VectorEngine {
 	}
 	
 	/*
-	 * Purpose: Calculate the equality between an array of colors (in Integer form)
-	 * Return Type: int => Equality; The lower the more equal the colors
-	 * Params: YCbCrColor[][] colors1 => List 1 of colors;
-	 * 			YCbCrColor[][] colors2 => Second list of colors;
+	 * Purpose: Calculate the equality between two MakroBlocks
+	 * Return Type: double => Equality; The lower the more equal the colors
+	 * Params: YCbCrMakroBlock block1 => First block;
+	 * 			YCbCrMakroBlock block2 => Second block (same size as block1)
 	 */
 	public double get_SAD_of_colors(YCbCrMakroBlock block1, YCbCrMakroBlock block2) {
-		int size = block1.getSize();
-		double resY = 0;
-		double resCb = 0;
-		double resCr = 0;
-		double resA = 0;
+		Point pos1 = block1.getPosition();
+		Point pos2 = block2.getPosition();
+		return get_SAD_of_planes(block1.getFrame(), pos1.x, pos1.y, block2.getFrame(), pos2.x, pos2.y, block1.getSize());
+	}
+	
+	/*
+	 * Purpose: Calculate the equality between two square areas directly on the planes
+	 * 			(Integer accumulators, no allocation per pixel or per call).
+	 * 			Pixels outside a frame count as Y = Cb = Cr = 0 and A = 255.
+	 * Return Type: double => Equality; The lower the more equal the colors
+	 * Params: PlanarFrame frame1 => Frame of the first area;
+	 * 			int x1, y1 => Top left position of the first area;
+	 * 			PlanarFrame frame2 => Frame of the second area;
+	 * 			int x2, y2 => Top left position of the second area;
+	 * 			int size => Size of both areas
+	 */
+	public double get_SAD_of_planes(PlanarFrame frame1, int x1, int y1, PlanarFrame frame2, int x2, int y2, int size) {
+		int sadY = 0, sadCb = 0, sadCr = 0, sadA = 0;
 		
-		for (int y = 0; y < size; y++) {
-			for (int x = 0; x < size; x++) {
-				double[] YCbCrCol1 = block1.getReversedSubSampleColor(x, y);
-				double[] YCbCrCol2 = block2.getReversedSubSampleColor(x, y);
-
-				resY += Math.abs(YCbCrCol1[0] - YCbCrCol2[0]);
-				resCb += Math.abs(YCbCrCol1[1] - YCbCrCol2[1]);
-				resCr += Math.abs(YCbCrCol1[2] - YCbCrCol2[2]);
-				resA += Math.abs(YCbCrCol1[3] - YCbCrCol2[3]);
+		if (is_area_inside(frame1, x1, y1, size) && is_area_inside(frame2, x2, y2, size)) {
+			byte[] Y1 = frame1.getLumaPlane(), Cb1 = frame1.getCbPlane(), Cr1 = frame1.getCrPlane();
+			byte[] Y2 = frame2.getLumaPlane(), Cb2 = frame2.getCbPlane(), Cr2 = frame2.getCrPlane();
+			int lumaStride1 = frame1.getLumaStride(), chromaStride1 = frame1.getChromaStride();
+			int lumaStride2 = frame2.getLumaStride(), chromaStride2 = frame2.getChromaStride();
+			
+			int prevChromaRow1 = -1, prevChromaRow2 = -1;
+			int rowCb = 0, rowCr = 0;
+			
+			for (int y = 0; y < size; y++) {
+				int lumaRow1 = (y1 + y) * lumaStride1 + x1;
+				int lumaRow2 = (y2 + y) * lumaStride2 + x2;
+				
+				for (int x = 0; x < size; x++) {
+					sadY += Math.abs((Y1[lumaRow1 + x] & 0xFF) - (Y2[lumaRow2 + x] & 0xFF));
+				}
+				
+				int chromaRow1 = ((y1 + y) >> 1) * chromaStride1;
+				int chromaRow2 = ((y2 + y) >> 1) * chromaStride2;
+				
+				//Two luma rows share one chroma row; only sum it again if one of the rows changed
+				if (chromaRow1 != prevChromaRow1 || chromaRow2 != prevChromaRow2) {
+					rowCb = 0;
+					rowCr = 0;
+					
+					for (int x = 0; x < size; x++) {
+						int c1 = chromaRow1 + ((x1 + x) >> 1);
+						int c2 = chromaRow2 + ((x2 + x) >> 1);
+						rowCb += Math.abs((Cb1[c1] & 0xFF) - (Cb2[c2] & 0xFF));
+						rowCr += Math.abs((Cr1[c1] & 0xFF) - (Cr2[c2] & 0xFF));
+					}
+					
+					prevChromaRow1 = chromaRow1;
+					prevChromaRow2 = chromaRow2;
+				}
+				
+				sadCb += rowCb;
+				sadCr += rowCr;
+			}
+		} else {
+			//Slow path for areas that leave the frame
+			for (int y = 0; y < size; y++) {
+				for (int x = 0; x < size; x++) {
+					int px1 = x1 + x, py1 = y1 + y;
+					int px2 = x2 + x, py2 = y2 + y;
+					boolean in1 = frame1.contains(px1, py1);
+					boolean in2 = frame2.contains(px2, py2);
+					
+					sadY += Math.abs((in1 ? frame1.getY(px1, py1) : 0) - (in2 ? frame2.getY(px2, py2) : 0));
+					sadCb += Math.abs((in1 ? frame1.getCb(px1 >> 1, py1 >> 1) : 0) - (in2 ? frame2.getCb(px2 >> 1, py2 >> 1) : 0));
+					sadCr += Math.abs((in1 ? frame1.getCr(px1 >> 1, py1 >> 1) : 0) - (in2 ? frame2.getCr(px2 >> 1, py2 >> 1) : 0));
+					sadA += in1 == in2 ? 0 : 255;
+				}
 			}
 		}
 		
+		double resY = sadY;
+		double resCb = sadCb;
+		double resCr = sadCr;
+		
 		resY = resY * resY * resY;
 		resCb = resCb * resCb;
 		resCr = resCr * resCr;
-		resA = Math.pow(resA, resA);
+		double resA = Math.pow(sadA, sadA);
 		
 		return (resY + resCb + resCr + resA) / (double)(size * size);
 	}
 	
+	private boolean is_area_inside(PlanarFrame frame, int x, int y, int size) {
+		return x >= 0 && y >= 0 && x + size <= frame.getWidth() && y + size <= frame.getHeight();
+	}
+	
 	/*
 	 * Purpose: Creates a BufferedImage with all the vector paths visualized
 	 * Return Type: BufferedImage => Image with all vectors on it
@@ -0,0 +1,327 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+import Utils.ColorManager;
+import Utils.PixelRaster;
+import Utils.PlanarFrame;
+
+/*
+ * Reads the frames of a YUV4MPEG2 file or stream (8 bit, 4:2:0) in ascending order.
+ * The planes are read straight into a PlanarFrame and taken as the full range YCbCr of the codec (like C420jpeg).
+ * Limited range streams (XCOLORRANGE=LIMITED) are expanded to full range while reading.
+ * Streams (e.g. a pipe) don't know their frame count, they end with the last complete frame.
+ */
+public class Y4MFrameSource implements FrameSource {
+	private static final String MAGIC = "YUV4MPEG2";
+	private static final int MAX_HEADER_LENGTH = 1024;
+	
+	private DataInputStream IN = null;
+	private ColorManager COLOR_MANAGER = new ColorManager();
+	private int WIDTH = 0;
+	private int HEIGHT = 0;
+	private long HEADER_LENGTH = 0;
+	private int FRAME_COUNT = -1;
+	private int NEXT_FRAME = 0;
+	private int FRAME_RATE_NUMERATOR = 0;
+	private int FRAME_RATE_DENOMINATOR = 1;
+	
+	//Limited to full range tables (NULL = stream is full range already)
+	private byte[] LUMA_RANGE = null;
+	private byte[] CHROMA_RANGE = null;
+	
+	public Y4MFrameSource(File file) throws IOException {
+		this(new FileInputStream(file), file.getAbsolutePath());
+		
+		try {
+			count_frames(file);
+		} catch (IOException e) {
+			this.IN.close();
+			throw e;
+		}
+	}
+	
+	/*
+	 * Params: InputStream in => Stream to read the frames from (e.g. System.in; gets closed by close())
+	 */
+	public Y4MFrameSource(InputStream in) throws IOException {
+		this(in, "Stream");
+	}
+	
+	private Y4MFrameSource(InputStream in, String name) throws IOException {
+		this.IN = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+		
+		try {
+			read_stream_header(name);
+		} catch (IOException e) {
+			this.IN.close();
+			throw e;
+		}
+	}
+	
+	/*
+	 * Purpose: Get the amount of frames in the file
+	 * Return Type: int => Amount of frames; -1 = stream with unknown length
+	 * Params: void
+	 */
+	@Override
+	public int get_frame_count() {
+		return this.FRAME_COUNT;
+	}
+	
+	@Override
+	public BufferedImage read_frame(int index) throws IOException {
+		PixelRaster raster = read_raster(index);
+		return raster == null ? null : raster.toBufferedImage();
+	}
+	
+	@Override
+	public PixelRaster read_raster(int index) throws IOException {
+		PlanarFrame frame = read_planes(index);
+		
+		if (frame == null) {
+			return null;
+		}
+		
+		PixelRaster raster = new PixelRaster(frame.getWidth(), frame.getHeight());
+		this.COLOR_MANAGER.convert_planes_to_ARGB(frame, raster.getData());
+		return raster;
+	}
+	
+	/*
+	 * Purpose: Read the planes of a frame without any color conversion (frames in between get skipped)
+	 * Return Type: PlanarFrame => New frame; NULL = frame does not exist, was already read or is truncated
+	 * Params: int index => Index of the frame
+	 */
+	@Override
+	public PlanarFrame read_planes(int index) throws IOException {
+		if (index < this.NEXT_FRAME) {
+			System.err.println("Frame " + index + " was already read from the stream! > Skip");
+			return null;
+		}
+		
+		while (this.FRAME_COUNT < 0 || this.NEXT_FRAME < this.FRAME_COUNT) {
+			String line = read_line(this.IN);
+			
+			if (line == null) {
+				return null;
+			} else if (!line.startsWith("FRAME")) {
+				throw new IOException("Frame " + this.NEXT_FRAME + " has no frame header");
+			}
+			
+			PlanarFrame frame = new PlanarFrame(this.WIDTH, this.HEIGHT);
+			
+			try {
+				this.IN.readFully(frame.getLumaPlane());
+				this.IN.readFully(frame.getCbPlane());
+				this.IN.readFully(frame.getCrPlane());
+			} catch (EOFException e) {
+				System.err.println("Frame " + this.NEXT_FRAME + " is truncated! > Skip");
+				return null;
+			}
+			
+			if (this.NEXT_FRAME++ < index) {
+				continue;
+			}
+			
+			if (this.LUMA_RANGE != null) {
+				expand_range(frame.getLumaPlane(), this.LUMA_RANGE);
+				expand_range(frame.getCbPlane(), this.CHROMA_RANGE);
+				expand_range(frame.getCrPlane(), this.CHROMA_RANGE);
+			}
+			
+			return frame;
+		}
+		
+		return null;
+	}
+	
+	/*
+	 * Frame rate of the stream header (numerator 0 = not given)
+	 */
+	public int get_frame_rate_numerator() {
+		return this.FRAME_RATE_NUMERATOR;
+	}
+	
+	public int get_frame_rate_denominator() {
+		return this.FRAME_RATE_DENOMINATOR;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.IN.close();
+	}
+	
+	/*
+	 * Purpose: Parse the stream header ("YUV4MPEG2 W<width> H<height> [F<n>:<d>] [C<colorspace>] ...")
+	 * Return Type: void
+	 * Params: String name => Name of the file or stream (for error messages)
+	 */
+	private void read_stream_header(String name) throws IOException {
+		String header = read_line(this.IN);
+		
+		if (header == null || !header.startsWith(MAGIC + " ")) {
+			throw new IOException(name + " is no YUV4MPEG2 file");
+		}
+		
+		this.HEADER_LENGTH = header.length() + 1;
+		
+		for (String param : header.substring(MAGIC.length() + 1).split(" ")) {
+			if (param.isEmpty()) {
+				continue;
+			}
+			
+			String value = param.substring(1);
+			
+			try {
+				switch (param.charAt(0)) {
+				case 'W':
+					this.WIDTH = Integer.parseInt(value);
+					break;
+				case 'H':
+					this.HEIGHT = Integer.parseInt(value);
+					break;
+				case 'F':
+					String[] rate = value.split(":");
+					this.FRAME_RATE_NUMERATOR = Integer.parseInt(rate[0]);
+					this.FRAME_RATE_DENOMINATOR = Integer.parseInt(rate[1]);
+					break;
+				case 'C':
+					//420, 420jpeg, 420paldv and 420mpeg2 are 8 bit; 420p10, 420p12, ... are not
+					if (!value.startsWith("420") || value.matches("420p\\d.*")) {
+						throw new IOException("Colorspace " + value + " is not supported (only 8 bit 4:2:0)");
+					}
+					
+					break;
+				case 'X':
+					if (value.equalsIgnoreCase("COLORRANGE=LIMITED")) {
+						create_range_tables();
+					} else if (!value.equalsIgnoreCase("COLORRANGE=FULL") && value.toUpperCase().startsWith("COLORRANGE=")) {
+						System.err.println("Unknown color range " + value.substring(11) + ", taken as full range! > Skip");
+					}
+					
+					break;
+				}
+			} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				throw new IOException("Invalid stream parameter " + param);
+			}
+		}
+		
+		if (this.WIDTH <= 0 || this.HEIGHT <= 0) {
+			throw new IOException(name + " has no valid frame size");
+		}
+		
+		if (this.FRAME_RATE_NUMERATOR <= 0 || this.FRAME_RATE_DENOMINATOR <= 0) {
+			this.FRAME_RATE_NUMERATOR = 0;
+			this.FRAME_RATE_DENOMINATOR = 1;
+		}
+	}
+	
+	/*
+	 * Purpose: Create the tables that expand limited range samples (Y 16 - 235, Cb / Cr 16 - 240) to full range
+	 * Return Type: void
+	 * Params: void
+	 */
+	private void create_range_tables() {
+		this.LUMA_RANGE = new byte[256];
+		this.CHROMA_RANGE = new byte[256];
+		
+		for (int i = 0; i < 256; i++) {
+			this.LUMA_RANGE[i] = (byte)clamp(Math.round((i - 16) * 255.0F / 219.0F));
+			this.CHROMA_RANGE[i] = (byte)clamp(Math.round((i - 128) * 255.0F / 224.0F) + 128);
+		}
+	}
+	
+	private void expand_range(byte[] plane, byte[] table) {
+		for (int i = 0; i < plane.length; i++) {
+			plane[i] = table[plane[i] & 0xFF];
+		}
+	}
+	
+	private int clamp(int val) {
+		return val < 0 ? 0 : (val > 255 ? 255 : val);
+	}
+	
+	/*
+	 * Purpose: Count the complete frames of a file ("FRAME[ <params>]\n" followed by Y, Cb and Cr)
+	 * Return Type: void
+	 * Params: File file => File of the stream
+	 */
+	private void count_frames(File file) throws IOException {
+		long frameSize = (long)this.WIDTH * this.HEIGHT + 2L * ((this.WIDTH + 1) / 2) * ((this.HEIGHT + 1) / 2);
+		this.FRAME_COUNT = 0;
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			raf.seek(this.HEADER_LENGTH);
+			
+			for (String line = read_line(raf); line != null; line = read_line(raf)) {
+				if (!line.startsWith("FRAME")) {
+					throw new IOException("Frame " + this.FRAME_COUNT + " has no frame header");
+				}
+				
+				long offset = raf.getFilePointer();
+				
+				if (offset + frameSize > raf.length()) {
+					System.err.println("Frame " + this.FRAME_COUNT + " is truncated! > Skip");
+					break;
+				}
+				
+				this.FRAME_COUNT++;
+				raf.seek(offset + frameSize);
+			}
+		}
+	}
+	
+	/*
+	 * Purpose: Read a header line
+	 * Return Type: String => Line without '\n'; NULL = end of file
+	 * Params: DataInput in => File or stream to read from
+	 */
+	private String read_line(DataInput in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		
+		try {
+			for (int c = in.readUnsignedByte(); c != '\n'; c = in.readUnsignedByte()) {
+				if (line.length() >= MAX_HEADER_LENGTH) {
+					throw new IOException("Header line is too long");
+				}
+				
+				line.append((char)c);
+			}
+		} catch (EOFException e) {
+			return null;
+		}
+		
+		return line.toString();
+	}
+}
@@ -0,0 +1,396 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Encoder;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+import Main.config;
+import Utils.DCTObject;
+import Utils.Filter;
+import Utils.PixelRaster;
+import Utils.PlanarFrame;
+import Utils.ProgressListener;
+import Utils.Status;
+import Utils.Vector;
+import Utils.YCbCrMakroBlock;
+
+/*
+ * Headless encoder: Encodes a sequence of frames into a YAVC file.
+ * One instance encodes one sequence at a time; encode() blocks until done.
+ */
+public class YavcEncoder {
+	private volatile Status STATUS = Status.STOPPED;
+	
+	private EncoderSettings SETTINGS = null;
+	private ProgressListener LISTENER = null;
+	private Filter FILTER = new Filter();
+	private Scene SCENE = new Scene();
+	private MakroBlockEngine MAKROBLOCK_ENGINE = new MakroBlockEngine();
+	private MakroDifferenceEngine MAKROBLOCK_DIFFERENCE_ENGINE = new MakroDifferenceEngine();
+	private VectorEngine VECTOR_ENGINE = new VectorEngine();
+	private OutputWriter OUTPUT_WRITER = null;
+	
+	public YavcEncoder(EncoderSettings settings, ProgressListener listener) {
+		this.SETTINGS = settings == null ? new EncoderSettings() : settings;
+		this.LISTENER = listener == null ? (current, total) -> {} : listener;
+	}
+	
+	/*
+	 * Purpose: Encode all numbered bitmaps of a directory
+	 * Return Type: File => Encoded YAVC file (NULL on error or stop)
+	 * Params: File inputDirectory => Directory with the frames (0000.bmp, 0001.bmp, ...);
+	 * 			File outputDirectory => Directory to write the YAVC file into
+	 */
+	public File encode(File inputDirectory, File outputDirectory) {
+		if (inputDirectory == null || !inputDirectory.isDirectory()) {
+			System.err.println("Input " + inputDirectory + " is no directory! > Abort");
+			return null;
+		}
+		
+		return encode(new DirectoryFrameSource(inputDirectory), outputDirectory);
+	}
+	
+	/*
+	 * Purpose: Encode all frames of a source
+	 * Return Type: File => Encoded YAVC file (NULL on error or stop)
+	 * Params: FrameSource source => Frames to encode;
+	 * 			File outputDirectory => Directory to write the YAVC file into
+	 */
+	public File encode(FrameSource source, File outputDirectory) {
+		if (source == null) {
+			System.err.println("No frames to encode! > Abort");
+			return null;
+		} else if (outputDirectory == null) {
+			System.err.println("No output directory! > Abort");
+			return null;
+		}
+		
+		this.STATUS = Status.RUNNING;
+		outputDirectory.mkdirs();
+		
+		this.MAKROBLOCK_ENGINE.set_transform_mode(this.SETTINGS.getTransformMode());
+		this.MAKROBLOCK_ENGINE.set_quantization_parameter(this.SETTINGS.getQuantizationParameter());
+		this.OUTPUT_WRITER = new OutputWriter(outputDirectory.getAbsolutePath(), this.MAKROBLOCK_ENGINE);
+		
+		int filesCount = source.get_frame_count();
+		BlockingQueue<AnalyzedFrame> analyzedFrames = new ArrayBlockingQueue<AnalyzedFrame>(config.ENCODER_PIPELINE_DEPTH);
+		CompletableFuture<int[][]> firstHistogram = new CompletableFuture<int[][]>();
+		
+		Thread analyzer = new Thread(() -> {
+			analyze_frames(source, filesCount, analyzedFrames, firstHistogram);
+		});
+		
+		analyzer.setName("FrameAnalyzer");
+		analyzer.start();
+		
+		boolean completed = false;
+		File result = null;
+		
+		try {
+			long timeStart = System.currentTimeMillis();
+			encode_frames(filesCount, analyzedFrames, firstHistogram);
+			
+			boolean written = this.OUTPUT_WRITER.close();
+			result = this.OUTPUT_WRITER.get_result_file();
+			completed = this.STATUS == Status.RUNNING && written;
+			
+			if (!written) {
+				System.err.println("Encoding failed, the YAVC file is incomplete! > Abort");
+			}
+			
+			long timeEnd = System.currentTimeMillis();
+			System.out.println("Time: " + (timeEnd - timeStart) + "ms");
+		} catch (Exception e) {
+			e.printStackTrace();
+			this.OUTPUT_WRITER.close();
+		} finally {
+			//Never leave the analyzer waiting for the encoding stage
+			firstHistogram.complete(null);
+			analyzer.interrupt();
+			
+			try {
+				source.close();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		
+		this.STATUS = Status.STOPPED;
+		this.LISTENER.finished(completed);
+		return completed ? result : null;
+	}
+	
+	/*
+	 * Purpose: Stop the running encoding process (frames that are already encoded get written)
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void stop() {
+		this.STATUS = Status.STOPPED;
+	}
+	
+	/*
+	 * Purpose: Second stage of the encoder pipeline: Encodes the analyzed frames in order
+	 * Return Type: void
+	 * Params: int filesCount => Amount of frames in the sequence;
+	 * 			BlockingQueue<AnalyzedFrame> analyzedFrames => Queue from the analysis stage;
+	 * 			CompletableFuture<int[][]> firstHistogram => Histogram of the reconstructed start frame
+	 */
+	private void encode_frames(int filesCount, BlockingQueue<AnalyzedFrame> analyzedFrames, CompletableFuture<int[][]> firstHistogram) throws InterruptedException {
+		boolean previews = this.LISTENER.wants_previews();
+		ArrayList<PlanarFrame> referenceFrames = new ArrayList<PlanarFrame>(config.MAX_BACK_REF);
+		PixelRaster prevImage = null;
+		PixelRaster currentImage = null;
+		
+		Dimension dim = null;
+		int changeDetectDistance = 0;
+		int lastIndex = 0;
+		
+		while (true) {
+			AnalyzedFrame job = analyzedFrames.take();
+			
+			if (job.isEnd()) {
+				break;
+			} else if (this.STATUS != Status.RUNNING) {
+				firstHistogram.complete(null);
+				continue; //Drain the queue, so the analyzer can finish
+			}
+			
+			int i = job.getIndex();
+			changeDetectDistance += i - lastIndex;
+			lastIndex = i;
+			
+			if (prevImage == null) {
+				prevImage = job.getImage();
+				PlanarFrame startFrame = job.getPlanes() != null ? job.getPlanes() : this.MAKROBLOCK_ENGINE.get_planar_frame(prevImage);
+				
+				ArrayList<YCbCrMakroBlock> prevBlocks = this.MAKROBLOCK_ENGINE.get_makroblocks_from_image(startFrame, null, config.SUPER_BLOCK);
+				ArrayList<DCTObject> DCT = this.MAKROBLOCK_ENGINE.apply_DCT_on_blocks(prevBlocks);
+				prevImage = this.OUTPUT_WRITER.reconstruct_DCT_image(DCT, prevImage);
+				
+				referenceFrames.add(this.MAKROBLOCK_ENGINE.get_planar_frame(prevImage));
+				//Sources with unknown length store 0, the decoder takes the count from the frame index
+				this.OUTPUT_WRITER.bake_meta_data(prevImage, Math.max(filesCount, 0), this.SETTINGS.getFrameRateNumerator(), this.SETTINGS.getFrameRateDenominator());
+				this.OUTPUT_WRITER.bake_start_frame(prevImage, i);
+				
+				//The scene detection of the next frame compares against the reconstructed start frame
+				dim = new Dimension(prevImage.getWidth(), prevImage.getHeight());
+				int[][] prevHistogram = new int[3][256];
+				this.FILTER.get_sobel_values(prevImage, new int[dim.width][dim.height], prevHistogram);
+				firstHistogram.complete(prevHistogram);
+				this.LISTENER.progress(i, filesCount);
+				continue;
+			}
+			
+			currentImage = job.getImage();
+			PlanarFrame currentFrame = job.getPlanes();
+			boolean imageOutdated = false;
+			int[][] edges = job.getEdges();
+			int colorCount = job.getColorCount();
+			
+			if (currentFrame != null) {
+				//The source planes get coded, the image only served the analysis and gets updated where it is still needed
+				this.FILTER.damp_frame_colors(referenceFrames.get(referenceFrames.size() - 1), currentFrame);
+				imageOutdated = true;
+			} else {
+				this.FILTER.damp_frame_colors(prevImage, currentImage); //CurrentImage gets updated automatically
+				currentFrame = this.MAKROBLOCK_ENGINE.get_planar_frame(currentImage);
+			}
+			
+			if (previews) {
+				if (imageOutdated) {
+					this.MAKROBLOCK_ENGINE.fill_raster(currentFrame, currentImage);
+					imageOutdated = false;
+				}
+				
+				this.LISTENER.frame_previews(prevImage, currentImage);
+				this.LISTENER.sobel_preview(job.getSobelImage());
+			}
+			
+			ArrayList<YCbCrMakroBlock> curImgBlocks = this.MAKROBLOCK_ENGINE.get_makroblocks_from_image(currentFrame, edges, config.SUPER_BLOCK);
+			
+			//This only adds an I-Frame if 'i' is a 80th frame and a change
+			//detection lied 10 frames ahead or a change detection has triggered.
+			boolean sceneChanged = job.isSceneChanged();
+			
+			if (sceneChanged == true) {
+				System.out.println("Shot change dectedted at frame " + i);
+			}
+			
+			if (colorCount <= 750) {
+				curImgBlocks = this.MAKROBLOCK_ENGINE.get_makroblocks_from_image(currentFrame, edges, config.SMALL_BLOCK);
+			}
+			
+			if ((i % 80 == 0 && changeDetectDistance > 10) || sceneChanged) {
+				ArrayList<DCTObject> dct = this.MAKROBLOCK_ENGINE.apply_DCT_on_blocks(curImgBlocks);
+				
+				if (!this.OUTPUT_WRITER.add_obj_to_queue(dct, null, i)) {
+					this.STATUS = Status.STOPPED;
+					continue;
+				}
+				
+				if (imageOutdated) {
+					this.MAKROBLOCK_ENGINE.fill_raster(currentFrame, currentImage);
+				}
+				
+				referenceFrames.clear();
+				referenceFrames.add(currentFrame);
+				prevImage = currentImage;
+				changeDetectDistance = sceneChanged == true ? 0 : changeDetectDistance;
+				this.LISTENER.progress(i, filesCount);
+				continue;
+			}
+			
+			ArrayList<YCbCrMakroBlock> differences = this.MAKROBLOCK_DIFFERENCE_ENGINE.get_MakroBlock_difference(curImgBlocks, referenceFrames.get(referenceFrames.size() - 1));
+			this.FILTER.flatten_down_color(differences);
+			
+			if (previews) {
+				this.LISTENER.makroblock_preview(this.OUTPUT_WRITER.draw_MB_outlines(dim, curImgBlocks));
+				this.LISTENER.difference_preview(differences, new Dimension(currentImage.getWidth(), currentImage.getHeight()));
+			}
+			
+			ArrayList<Vector> movementVectors = this.VECTOR_ENGINE.calculate_movement_vectors(referenceFrames, differences, this.SETTINGS.getSADTolerance(), colorCount);
+			print_statistics(movementVectors, differences, dim);
+			
+			if (previews) {
+				this.LISTENER.vector_preview(this.VECTOR_ENGINE.construct_vector_path(dim, movementVectors));
+			}
+
+			BufferedImage result = this.OUTPUT_WRITER.build_Frame(prevImage, referenceFrames, differences, movementVectors, 3);
+			PixelRaster res = new PixelRaster(result);
+			ArrayList<DCTObject> diffDCT = this.MAKROBLOCK_ENGINE.apply_DCT_on_blocks(differences);
+			
+			//Just for validation
+			res = this.OUTPUT_WRITER.reconstruct_DCT_image(diffDCT, res);
+			
+			if (!this.OUTPUT_WRITER.add_obj_to_queue(diffDCT, movementVectors, i)) {
+				this.STATUS = Status.STOPPED;
+				continue;
+			}
+			
+			this.FILTER.apply_deblocking(res, curImgBlocks);
+			
+			referenceFrames.add(this.MAKROBLOCK_ENGINE.get_planar_frame(res));
+			release_old_reference_images(referenceFrames);
+			prevImage = res;
+			this.LISTENER.progress(i, filesCount);
+		}
+		
+		referenceFrames.clear();
+	}
+	
+	/*
+	 * Purpose: First stage of the encoder pipeline: Reads the frames and analyzes them
+	 * 			(Sobel, histogram, color count and scene change) ahead of the encoding stage
+	 * Return Type: void
+	 * Params: FrameSource source => Frames to read;
+	 * 			int filesCount => Amount of frames in the source;
+	 * 			BlockingQueue<AnalyzedFrame> queue => Bounded queue to the encoding stage;
+	 * 			CompletableFuture<int[][]> firstHistogram => Histogram of the reconstructed start frame
+	 */
+	private void analyze_frames(FrameSource source, int filesCount, BlockingQueue<AnalyzedFrame> queue, CompletableFuture<int[][]> firstHistogram) {
+		Filter filter = new Filter();
+		int[][] prevHistogram = null;
+		int[][] curHistogram = new int[3][256];
+		Dimension dim = null;
+		
+		try {
+			for (int i = 0; (filesCount < 0 || i < filesCount) && this.STATUS == Status.RUNNING; i++) {
+				PlanarFrame planes = source.read_planes(i);
+				PixelRaster img = planes == null ? source.read_raster(i) : new PixelRaster(planes.getWidth(), planes.getHeight());
+				
+				if (img == null && filesCount < 0) {
+					break; //Sources with unknown length end at the first missing frame
+				} else if (img == null) {
+					continue;
+				} else if (planes != null) {
+					this.MAKROBLOCK_ENGINE.fill_raster(planes, img);
+				}
+				
+				AnalyzedFrame job = new AnalyzedFrame(i, img, planes);
+				
+				//The start frame is analyzed after its reconstruction in the encoding stage
+				if (dim == null) {
+					dim = new Dimension(job.getImage().getWidth(), job.getImage().getHeight());
+					queue.put(job);
+					continue;
+				}
+				
+				int[][] edges = new int[dim.width][dim.height];
+				filter.get_sobel_values(job.getImage(), edges, curHistogram);
+				
+				if (prevHistogram == null) {
+					prevHistogram = firstHistogram.get();
+					
+					if (prevHistogram == null) {
+						break;
+					}
+				}
+				
+				job.setEdges(edges);
+				job.setColorCount(filter.get_color_count());
+				job.setSobelImage(filter.get_sobel_image());
+				job.setSceneChanged(this.SCENE.scene_change_detected(prevHistogram, curHistogram, dim));
+				prevHistogram = curHistogram;
+				queue.put(job);
+			}
+		} catch (InterruptedException e) {
+			return; //The encoding stage is gone, nobody waits for the end marker
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		
+		try {
+			queue.put(AnalyzedFrame.create_end_marker());
+		} catch (InterruptedException e) {
+			return;
+		}
+	}
+	
+	private void print_statistics(ArrayList<Vector> movementVectors, ArrayList<YCbCrMakroBlock> differences, Dimension dim) {
+		int areaVecs = 0, areaDiffs = 0;
+		
+		for (Vector v : movementVectors) {
+			areaVecs += Math.pow(v.getAppendedBlock().getSize(), 2);
+		}
+		
+		for (YCbCrMakroBlock b : differences) {
+			areaDiffs += Math.pow(b.getSize(), 2);
+		}
+		
+		System.out.println("Vecs: " + movementVectors.size() + " (" + areaVecs + ") : " + differences.size() + " (" + areaDiffs + ")");
+	}
+	
+	private void release_old_reference_images(ArrayList<PlanarFrame> refList) {
+		if (refList.size() < config.MAX_BACK_REF) {
+			return;
+		}
+		
+		refList.remove(0);
+	}
+}
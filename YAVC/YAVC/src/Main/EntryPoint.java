@@ -26,39 +26,27 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 
-import javax.imageio.ImageIO;
 import javax.swing.JFileChooser;
 
-import Decoder.DataGrabber;
-import Decoder.DataPipeEngine;
-import Decoder.DataPipeValveEngine;
-import Encoder.MakroBlockEngine;
-import Encoder.MakroDifferenceEngine;
-import Encoder.OutputWriter;
-import Encoder.Scene;
-import Encoder.VectorEngine;
+import Decoder.YavcDecoder;
+import Decoder.YavcPlayer;
+import Encoder.DirectoryFrameSource;
+import Encoder.EncoderSettings;
+import Encoder.YavcEncoder;
 import UI.Frame;
-import Utils.DCTObject;
-import Utils.Filter;
 import Utils.PixelRaster;
-import Utils.Status;
-import Utils.Vector;
+import Utils.ProgressListener;
 import Utils.YCbCrMakroBlock;
 
+/*
+ * Connects the UI with the headless encoder and decoder
+ */
 public class EntryPoint {
-	private Status EN_STATUS = Status.STOPPED;
-	private Status DE_STATUS = Status.STOPPED;
-	
-	private Filter FILTER = new Filter();
-	private Scene SCENE = new Scene();
-	private MakroBlockEngine MAKROBLOCK_ENGINE = new MakroBlockEngine();
-	private MakroDifferenceEngine MAKROBLOCK_DIFFERENCE_ENGINE = new MakroDifferenceEngine();
-	private VectorEngine VECTOR_ENGINE = new VectorEngine();
-	private OutputWriter OUTPUT_WRITER = null;
+	private YavcEncoder ENCODER = null;
+	private YavcDecoder DECODER = null;
+	private YavcPlayer PLAYER = null;
 	
 	public boolean start_encode(Frame frame) {
-		this.EN_STATUS = Status.RUNNING;
-		
 		try {
 			JFileChooser chooser = new JFileChooser();
 			chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -71,124 +59,67 @@ public class EntryPoint {
 			chooser.showOpenDialog(null);
 			File output = chooser.getSelectedFile();
 			
-			this.OUTPUT_WRITER = new OutputWriter(output.getAbsolutePath(), frame);
-			
 			if (input == null || output == null) {
 				return false;
 			}
 			
-			Thread worker = new Thread(() -> {
-				try {
-					long timeStart = System.currentTimeMillis();
-					ArrayList<PixelRaster> referenceImages = new ArrayList<PixelRaster>(config.MAX_BACK_REF);
-					PixelRaster prevImage = null;
-					PixelRaster currentImage = null;
-					
-					Dimension dim = null;
-					int[][] edges = null;
-					int[][] prevHistogram = new int[3][256];
-					int[][] curHistogram = new int[3][256];
-					int filesCount = input.listFiles().length;
-					int changeDetectDistance = 0;
-					
-					for (int i = 0; i < filesCount && this.EN_STATUS == Status.RUNNING; i++, changeDetectDistance++) {
-						frame.update_encoder_frame_count(i, filesCount, false);
-						String name = set_awaited_file_name(i, ".bmp");
-						File frameFile = new File(input.getAbsolutePath() + "/" + name);
-						
-						if (!frameFile.exists()) {
-							System.out.println("SKIP:" + frameFile.getAbsolutePath());
-							continue;
-						}
-						
-						if (prevImage == null) {
-							prevImage = new PixelRaster(ImageIO.read(frameFile));
-							
-							ArrayList<YCbCrMakroBlock> prevBlocks = this.MAKROBLOCK_ENGINE.get_makroblocks_from_image(prevImage, null, config.SUPER_BLOCK);
-							ArrayList<DCTObject> DCT = this.MAKROBLOCK_ENGINE.apply_DCT_on_blocks(prevBlocks);
-							prevImage = this.OUTPUT_WRITER.reconstruct_DCT_image(DCT, prevImage);
-							
-							referenceImages.add(prevImage);
-							this.OUTPUT_WRITER.bake_meta_data(prevImage, filesCount);
-							this.OUTPUT_WRITER.bake_start_frame(prevImage);
-							
-							dim = new Dimension(prevImage.getWidth(), prevImage.getHeight());
-							edges = new int[dim.width][dim.height];
-							this.FILTER.get_sobel_values(prevImage, edges, prevHistogram);
-							continue;
-						}
-						
-						currentImage = new PixelRaster(ImageIO.read(frameFile));
-						
-						this.FILTER.get_sobel_values(currentImage, edges, curHistogram);
-						this.FILTER.damp_frame_colors(prevImage, currentImage); //CurrentImage gets updated automatically
-						frame.set_previews(prevImage, currentImage);
-						frame.set_sobel_image(this.FILTER.get_sobel_image());
-						
-						ArrayList<YCbCrMakroBlock> curImgBlocks = this.MAKROBLOCK_ENGINE.get_makroblocks_from_image(currentImage, edges, config.SUPER_BLOCK);
-						
-						//This only adds an I-Frame if 'i' is a 80th frame and a change
-						//detection lied 10 frames ahead or a change detection has triggered.
-						boolean sceneChanged = this.SCENE.scene_change_detected(prevHistogram, curHistogram, dim);
-						
-						if (sceneChanged == true) {
-							System.out.println("Shot change dectedted at frame " + i);
-						}
-						
-						if (this.FILTER.get_color_count() <= 750) {
-							curImgBlocks = this.MAKROBLOCK_ENGINE.get_makroblocks_from_image(currentImage, edges, config.SMALL_BLOCK);
-						}
-						
-						if ((i % 80 == 0 && changeDetectDistance > 10) || sceneChanged) {
-							ArrayList<DCTObject> dct = this.MAKROBLOCK_ENGINE.apply_DCT_on_blocks(curImgBlocks);
-							this.OUTPUT_WRITER.add_obj_to_queue(dct, null);
-							referenceImages.clear();
-							referenceImages.add(currentImage);
-							prevImage = currentImage;
-							prevHistogram = curHistogram;
-							changeDetectDistance = sceneChanged == true ? 0 : changeDetectDistance;
-							continue;
-						}
-						
-						ArrayList<YCbCrMakroBlock> differences = this.MAKROBLOCK_DIFFERENCE_ENGINE.get_MakroBlock_difference(curImgBlocks, prevImage);
-						this.FILTER.flatten_down_color(differences);
-						frame.set_MBDiv_image(this.OUTPUT_WRITER.draw_MB_outlines(dim, curImgBlocks));
-						frame.setDifferenceImage(differences, new Dimension(currentImage.getWidth(), currentImage.getHeight()));
-						
-						ArrayList<Vector> movementVectors = this.VECTOR_ENGINE.calculate_movement_vectors(referenceImages, differences, frame.get_vec_sad_tolerance(), this.FILTER.get_color_count());
-						print_statistics(movementVectors, differences, dim);
-						
-						frame.setVectorizedImage(this.VECTOR_ENGINE.construct_vector_path(dim, movementVectors));
-
-						BufferedImage result = this.OUTPUT_WRITER.build_Frame(prevImage, referenceImages, differences, movementVectors, 3);
-						PixelRaster res = new PixelRaster(result);
-						ArrayList<DCTObject> diffDCT = this.MAKROBLOCK_ENGINE.apply_DCT_on_blocks(differences);
-						
-						//Just for validation
-						res = this.OUTPUT_WRITER.reconstruct_DCT_image(diffDCT, res);
-						this.OUTPUT_WRITER.add_obj_to_queue(diffDCT, movementVectors);
-						this.FILTER.apply_deblocking(res, curImgBlocks);
-						
-						referenceImages.add(res);
-						release_old_reference_images(referenceImages);
-						prevImage = res;
-						prevHistogram = curHistogram;
-					}
-					
-					frame.disposeWriterPermission();
-					
-					this.OUTPUT_WRITER.compress_result();
+			EncoderSettings settings = new EncoderSettings();
+			settings.setQuantizationParameter(frame.get_quantization_parameter());
+			settings.setSADTolerance(frame.get_vec_sad_tolerance());
+			
+			DirectoryFrameSource source = new DirectoryFrameSource(input);
+			int filesCount = source.get_frame_count();
+			
+			ProgressListener listener = new ProgressListener() {
+				@Override
+				public void progress(int currentFrame, int totalFrames) {
+					frame.update_encoder_frame_count(currentFrame, totalFrames, false);
+				}
+				
+				@Override
+				public void finished(boolean completed) {
 					frame.update_encoder_frame_count(filesCount + (filesCount / 10), filesCount, true);
-					
-					referenceImages.clear();
-					
-					long timeEnd = System.currentTimeMillis();
-					System.out.println("Time: " + (timeEnd - timeStart) + "ms");
-				} catch (Exception e) {
-					e.printStackTrace();
 				}
+				
+				@Override
+				public boolean wants_previews() {
+					return true;
+				}
+				
+				@Override
+				public void frame_previews(PixelRaster previous, PixelRaster current) {
+					frame.set_previews(previous, current);
+				}
+				
+				@Override
+				public void sobel_preview(BufferedImage img) {
+					frame.set_sobel_image(img);
+				}
+				
+				@Override
+				public void makroblock_preview(BufferedImage img) {
+					frame.set_MBDiv_image(img);
+				}
+				
+				@Override
+				public void difference_preview(ArrayList<YCbCrMakroBlock> differences, Dimension dim) {
+					frame.setDifferenceImage(differences, dim);
+				}
+				
+				@Override
+				public void vector_preview(BufferedImage img) {
+					frame.setVectorizedImage(img);
+				}
+			};
+			
+			YavcEncoder encoder = new YavcEncoder(settings, listener);
+			this.ENCODER = encoder;
+			
+			Thread worker = new Thread(() -> {
+				encoder.encode(source, output);
 			});
 			
+			worker.setName("Encoder");
 			worker.start();
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -197,37 +128,52 @@ public class EntryPoint {
 		return true;
 	}
 	
-	private void print_statistics(ArrayList<Vector> movementVectors, ArrayList<YCbCrMakroBlock> differences, Dimension dim) {
-		int areaVecs = 0, areaDiffs = 0;
-		
-		for (Vector v : movementVectors) {
-			areaVecs += Math.pow(v.getAppendedBlock().getSize(), 2);
-		}
-		
-		for (YCbCrMakroBlock b : differences) {
-			areaDiffs += Math.pow(b.getSize(), 2);
-		}
-		
-		System.out.println("Vecs: " + movementVectors.size() + " (" + areaVecs + ") : " + differences.size() + " (" + areaDiffs + ")");
-	}
-	
-	private String set_awaited_file_name(int i, String type) {
-		String prefix = "";
-		
-		if (i < 10) {
-			prefix = "000";
-		} else if (i < 100) {
-			prefix = "00";
-		} else if (i < 1000) {
-			prefix = "0";
+	public boolean start_decoding_process(Frame frame) {
+		try {
+			JFileChooser chooser = new JFileChooser("Choose a \"yavc\" file");
+			chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+			chooser.showOpenDialog(null);
+			
+			File file = chooser.getSelectedFile();
+			
+			if (file == null) {
+				return false;
+			}
+			
+			ProgressListener listener = new ProgressListener() {
+				@Override
+				public void progress(int currentFrame, int totalFrames) {
+					frame.update_decoder_frame_count(currentFrame, totalFrames, false);
+				}
+				
+				@Override
+				public boolean wants_previews() {
+					return true;
+				}
+				
+				@Override
+				public void decoded_frame_preview(BufferedImage img) {
+					frame.set_decoder_preview(img);
+				}
+			};
+			
+			YavcDecoder decoder = new YavcDecoder(listener);
+			this.DECODER = decoder;
+			
+			Thread worker = new Thread(() -> {
+				decoder.decode(file, file.getParentFile());
+			});
+			
+			worker.setName("Decoder");
+			worker.start();
+		} catch (Exception e1) {
+			e1.printStackTrace();
 		}
 		
-		return prefix + i + type;
+		return true;
 	}
 	
-	public boolean start_decoding_process(Frame frame) {
-		this.DE_STATUS = Status.RUNNING;
-		
+	public boolean start_playback_process(Frame frame) {
 		try {
 			JFileChooser chooser = new JFileChooser("Choose a \"yavc\" file");
 			chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
@@ -239,47 +185,26 @@ public class EntryPoint {
 				return false;
 			}
 			
-			Thread worker = new Thread(() -> {
-				DataGrabber grabber = new DataGrabber();
-				grabber.slice(file);
-				
-				DataPipeEngine dataPipeEngine = new DataPipeEngine(grabber);
-				DataPipeValveEngine dataPipeValveEngine = new DataPipeValveEngine(file.getParent());
-				
-				ArrayList<BufferedImage> referenceImages = new ArrayList<BufferedImage>(config.MAX_BACK_REF);
-				
-				int frameCounter = 0;
-				int maxFrames = dataPipeEngine.get_max_frame_number();
-				BufferedImage prevFrame = null;
-				BufferedImage currFrame = null;
+			ProgressListener listener = new ProgressListener() {
+				@Override
+				public void progress(int currentFrame, int totalFrames) {
+					frame.update_decoder_frame_count(currentFrame, totalFrames, false);
+				}
 				
-				while (dataPipeEngine.hasNext(frameCounter) && this.DE_STATUS == Status.RUNNING) {
-					if (prevFrame == null) {
-						prevFrame = dataPipeEngine.scrape_main_image(grabber.get_start_frame());
-						referenceImages.add(prevFrame);
-						dataPipeValveEngine.release_image(prevFrame);
-						continue;
-					}
-					
-					currFrame = dataPipeEngine.scrape_next_frame(frameCounter);
-					
-					ArrayList<Vector> vecs = dataPipeEngine.scrape_vectors(frameCounter++);
-					BufferedImage result = dataPipeEngine.build_frame(vecs, referenceImages, prevFrame, currFrame);
-					BufferedImage outputImg = this.FILTER.apply_gaussian_blur(result, 1);
-					
-					frame.set_decoder_preview(outputImg);
-					dataPipeValveEngine.release_image(outputImg);
-					prevFrame = result;
-					referenceImages.add(result);
-					
-					if (referenceImages.size() > config.MAX_BACK_REF) {
-						referenceImages.remove(0);
-					}
-					
-					frame.update_decoder_frame_count(frameCounter, maxFrames, false);
+				@Override
+				public void decoded_frame_preview(BufferedImage img) {
+					frame.set_decoder_preview(img);
 				}
+			};
+			
+			YavcPlayer player = new YavcPlayer(listener);
+			this.PLAYER = player;
+			
+			Thread worker = new Thread(() -> {
+				player.play(file);
 			});
 			
+			worker.setName("Player");
 			worker.start();
 		} catch (Exception e1) {
 			e1.printStackTrace();
@@ -289,18 +214,18 @@ public class EntryPoint {
 	}
 	
 	public void stop_encoding_process() {
-		this.EN_STATUS = Status.STOPPED;
+		if (this.ENCODER != null) {
+			this.ENCODER.stop();
+		}
 	}
 	
 	public void stop_decoding_process() {
-		this.DE_STATUS = Status.STOPPED;
-	}
-	
-	private void release_old_reference_images(ArrayList<PixelRaster> refList) {
-		if (refList.size() < config.MAX_BACK_REF) {
-			return;
+		if (this.DECODER != null) {
+			this.DECODER.stop();
 		}
 		
-		refList.remove(0);
+		if (this.PLAYER != null) {
+			this.PLAYER.stop();
+		}
 	}
 }
@@ -0,0 +1,187 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Main;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import Decoder.DecoderSettings;
+import Decoder.YavcDecoder;
+import Encoder.EncoderSettings;
+import Encoder.Y4MFrameSource;
+import Encoder.YavcEncoder;
+import Utils.CodecExecutor;
+import Utils.ImageFormat;
+import Utils.ProgressListener;
+import Utils.TransformMode;
+
+/*
+ * Command line entry point (no display needed).
+ * Usage:
+ * 	encode [--qp N] [--sad N] [--transform DCT|INTEGER] [--fps N[:D]] [--threads N] <output dir> <frame dir|file.y4m|-> [<frame dir|file.y4m|-> ...]
+ * 	decode [--format PNG|BMP|Y4M] [--compression 0-9] [--threads N] <output dir> <file.yavc> [<file.yavc> ...]
+ * Every input gets its own sub directory (named like the input) in the output directory.
+ * The input "-" reads a YUV4MPEG2 stream from stdin (e.g. piped from ffmpeg) into the sub directory "stdin".
+ */
+public class cli {
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			print_usage();
+			System.exit(2);
+		}
+		
+		EncoderSettings settings = new EncoderSettings();
+		DecoderSettings decoderSettings = new DecoderSettings();
+		boolean frameRateSet = false;
+		ArrayList<String> paths = new ArrayList<String>();
+		
+		try {
+			for (int i = 1; i < args.length; i++) {
+				switch (args[i]) {
+				case "--qp":
+					settings.setQuantizationParameter(Integer.parseInt(args[++i]));
+					break;
+				case "--sad":
+					settings.setSADTolerance(Integer.parseInt(args[++i]));
+					break;
+				case "--transform":
+					settings.setTransformMode(TransformMode.valueOf(args[++i].toUpperCase()));
+					break;
+				case "--format":
+					decoderSettings.setImageFormat(ImageFormat.valueOf(args[++i].toUpperCase()));
+					break;
+				case "--compression":
+					decoderSettings.setCompressionLevel(Integer.parseInt(args[++i]));
+					break;
+				case "--fps":
+					String[] rate = args[++i].split(":");
+					settings.setFrameRate(Integer.parseInt(rate[0]), rate.length > 1 ? Integer.parseInt(rate[1]) : 1);
+					frameRateSet = true;
+					break;
+				case "--threads":
+					CodecExecutor.set_parallelism(Integer.parseInt(args[++i]));
+					break;
+				default:
+					paths.add(args[i]);
+				}
+			}
+		} catch (Exception e) {
+			System.err.println("Invalid option: " + e.getMessage());
+			print_usage();
+			System.exit(2);
+		}
+		
+		if (paths.size() < 2) {
+			print_usage();
+			System.exit(2);
+		}
+		
+		File output = new File(paths.get(0));
+		int failed = 0;
+		
+		for (int i = 1; i < paths.size(); i++) {
+			File input = new File(paths.get(i));
+			boolean success = false;
+			
+			switch (args[0]) {
+			case "encode":
+				success = encode(input, output, settings, frameRateSet);
+				break;
+			case "decode":
+				success = decode(input, output, decoderSettings);
+				break;
+			default:
+				print_usage();
+				System.exit(2);
+			}
+			
+			failed += success ? 0 : 1;
+		}
+		
+		CodecExecutor.shutdown();
+		System.exit(failed == 0 ? 0 : 1);
+	}
+	
+	private static boolean encode(File input, File output, EncoderSettings settings, boolean frameRateSet) {
+		boolean stdin = input.getPath().equals("-");
+		String label = stdin ? "stdin" : input.getAbsolutePath();
+		
+		System.out.println("Encoding " + label);
+		YavcEncoder encoder = new YavcEncoder(settings, create_listener(stdin ? "stdin" : input.getName()));
+		File result = null;
+		
+		if (stdin || (input.isFile() && input.getName().endsWith(".y4m"))) {
+			try {
+				String name = stdin ? "stdin" : input.getName().substring(0, input.getName().length() - 4);
+				Y4MFrameSource source = stdin ? new Y4MFrameSource(System.in) : new Y4MFrameSource(input);
+				
+				int numerator = settings.getFrameRateNumerator();
+				int denominator = settings.getFrameRateDenominator();
+				
+				//Without --fps the frame rate of the stream header is used
+				if (!frameRateSet && source.get_frame_rate_numerator() > 0) {
+					settings.setFrameRate(source.get_frame_rate_numerator(), source.get_frame_rate_denominator());
+				}
+				
+				result = encoder.encode(source, new File(output, name));
+				settings.setFrameRate(numerator, denominator);
+			} catch (Exception e) {
+				System.err.println("Could not read " + label + ": " + e.getMessage());
+			}
+		} else {
+			result = encoder.encode(input, new File(output, input.getName()));
+		}
+		
+		if (result == null) {
+			System.err.println("Encoding of " + label + " failed!");
+			return false;
+		}
+		
+		System.out.println("Written " + result.getAbsolutePath());
+		return true;
+	}
+	
+	private static boolean decode(File input, File output, DecoderSettings settings) {
+		System.out.println("Decoding " + input.getAbsolutePath());
+		String name = input.getName().endsWith(".yavc") ? input.getName().substring(0, input.getName().length() - 5) : input.getName();
+		YavcDecoder decoder = new YavcDecoder(settings, create_listener(input.getName()));
+		
+		if (!decoder.decode(input, new File(output, name))) {
+			System.err.println("Decoding of " + input.getAbsolutePath() + " failed!");
+			return false;
+		}
+		
+		return true;
+	}
+	
+	private static ProgressListener create_listener(String name) {
+		return (currentFrame, totalFrames) -> {
+			System.out.println(name + ": " + currentFrame + " / " + (totalFrames < 0 ? "?" : totalFrames));
+		};
+	}
+	
+	private static void print_usage() {
+		System.err.println("Usage:");
+		System.err.println("  encode [--qp N] [--sad N] [--transform DCT|INTEGER] [--fps N[:D]] [--threads N] <output dir> <frame dir|file.y4m|-> [<frame dir|file.y4m|-> ...]");
+		System.err.println("  decode [--format PNG|BMP|Y4M] [--compression 0-9] [--threads N] <output dir> <file.yavc> [<file.yavc> ...]");
+	}
+}
@@ -21,6 +21,9 @@ along with this program.  If not, see <https://www.gnu.org/licenses/>.
 
 package Main;
 
+import Utils.ImageFormat;
+import Utils.TransformMode;
+
 public class config {
 	//Size of a MakroBlock in the encoding and decoding process
 	public static final int SUPER_BLOCK = 64;
@@ -28,6 +31,59 @@ public class config {
 	
 	public static final int MAX_BACK_REF = 7;
 	
+	//Analyzed frames that may wait for the encoding stage
+	public static final int ENCODER_PIPELINE_DEPTH = 4;
+	
+	//Encoded frames that may wait for the file writer (the encoder blocks while the queue is full)
+	public static final int WRITER_QUEUE_DEPTH = 8;
+	
+	//Minimum rows of a band the decoder reconstructs on one worker thread
+	public static final int DECODER_BAND_ROWS = 32;
+	
+	//Decoded frames that may wait for (or be in) the image writers; threads of the image writers (0 = all available processors)
+	public static final int IMAGE_SINK_QUEUE_DEPTH = 8;
+	public static final int IMAGE_SINK_THREADS = 0;
+	
+	//Output files of the decoder (deflate level 0 = uncompressed PNG)
+	public static final ImageFormat DEFAULT_IMAGE_FORMAT = ImageFormat.PNG;
+	public static final int DEFAULT_PNG_COMPRESSION = 4;
+	
+	//Frame rate of sequences without one (frames per numerator / denominator seconds)
+	public static final int DEFAULT_FRAME_RATE_NUMERATOR = 30;
+	public static final int DEFAULT_FRAME_RATE_DENOMINATOR = 1;
+	
+	//Decoded frames the player may hold ahead of the presentation clock
+	public static final int PLAYBACK_BUFFER_FRAMES = 8;
+	
+	//Worker threads of the shared codec pool (0 = all available processors)
+	public static final int WORKER_THREADS = 0;
+	
+	//Transform used for the DCT-II blocks (INTEGER = bit-exact on encoder and decoder)
+	public static final TransformMode TRANSFORM_MODE = TransformMode.INTEGER;
+	
+	//Quantization parameter of the DCT-II coefficients (QP 4 => step of 1.0; +6 doubles the step)
+	public static final int MIN_QP = 0;
+	public static final int MAX_QP = 51;
+	public static final int DEFAULT_QP = 16;
+	
+	//Version of the file layout (1 = UTF-8 chars, 2 = binary varints, 3 = single-file container, 4 = entropy coded frames,
+	//5 = zig-zag scanned run / level coefficients)
+	//The frame rate (META "FR[n:d]") and the timestamps behind the frame index are optional, older decoders skip them
+	public static final int FORMAT_VERSION = 5;
+	
+	//Single-file container: "YAVC" + version (1 byte), then records of {type (1 byte)} {length (4 bytes)} {raw length (4 bytes)} {deflated payload}
+	//(Frame records of version 4 and later are not deflated: {type (1 byte)} {length (4 bytes)} {entropy coded payload})
+	public static final int CONTAINER_MAGIC = 0x59415643;
+	public static final byte RECORD_META = 1;
+	public static final byte RECORD_START_FRAME = 2;
+	public static final byte RECORD_FRAME = 3;
+	public static final byte RECORD_TRAILER = 4;
+	public static final byte RECORD_INDEX = 5;
+	
+	//Trailer: {type} {length = 12} {frame count (4 bytes)} {index offset (8 bytes)}, not deflated
+	public static final int TRAILER_SIZE = 17;
+	
+	//Char table of the format version 1 (still needed for decoding)
 	public static final int RESERVED_TABLE_SIZE = 45;
 	public static final char V_DEF_S = (char)1;
 	public static final char DCT_DEF_S = (char)2;
@@ -49,6 +49,7 @@ public class DecodePanel extends JPanel {
 	private JProgressBar bar = new JProgressBar();
 	
 	private ToggleButton startBtn = new ToggleButton("Start");
+	private ToggleButton playBtn = new ToggleButton("Play");
 	private EntryPoint entryPoint = null;
 	
 	public DecodePanel(Frame frame, EntryPoint entryPoint) {
@@ -162,8 +163,34 @@ public class DecodePanel extends JPanel {
 			}
 		});
 		
+		this.playBtn.setContentAreaFilled(false);
+		this.playBtn.setFont(new Font("Arial", Font.PLAIN, 16));
+		this.playBtn.setBorderPainted(false);
+		this.playBtn.setBackground(ComponentColor.SUB_COLOR);
+		
+		this.playBtn.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				playBtn.setClicked(!playBtn.isClicked());
+				
+				if (playBtn.isClicked() == false) {
+					playBtn.setText("Stop");
+					playBtn.setBackground(ComponentColor.STO_COLOR);
+					boolean succ = entryPoint.start_playback_process(frame);
+					
+					if (succ == true) {
+						return;
+					}
+				}
+				
+				reset_play_btn();
+				entryPoint.stop_decoding_process();
+			}
+		});
+		
 		holder.add(box);
 		holder.add(this.startBtn);
+		holder.add(this.playBtn);
 		
 		return holder;
 	}
@@ -173,6 +200,11 @@ public class DecodePanel extends JPanel {
 		this.startBtn.setText("Start");
 	}
 	
+	public void reset_play_btn() {
+		this.playBtn.setBackground(ComponentColor.SUB_COLOR);
+		this.playBtn.setText("Play");
+	}
+	
 	public void set_frame_stats(int frame, int maxFrames, boolean percentOnly) {
 		if (percentOnly == false) {
 			this.frameCountLabel.setText(frame + "/" + maxFrames + " Frames");
@@ -48,12 +48,14 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
 import Main.EntryPoint;
+import Main.config;
 import Utils.PixelRaster;
 
 public class EncodePanel extends JPanel {
 	private static final long serialVersionUID = 1L;
 	
 	private int SAD_TOLERANCE = 32768;
+	private int QP = config.DEFAULT_QP;
 	
 	private JLabel prevFrameLabel = null;
 	private JLabel curFrameLabel = null;
@@ -109,6 +111,24 @@ public class EncodePanel extends JPanel {
 
 		holder.add(maxSADPanel, cons);
 		
+		Hashtable<Integer, JLabel> QPTable = new Hashtable<Integer, JLabel>();
+		QPTable.put(config.MIN_QP, create_label("High quality"));
+		QPTable.put((config.MIN_QP + config.MAX_QP) / 2, create_label("Balanced"));
+		QPTable.put(config.MAX_QP, create_label("Small file"));
+		
+		CustomSlider QPSlider = new CustomSlider(config.MIN_QP, config.MAX_QP, this.QP);
+		JPanel QPPanel = create_std_ctrl_panel("Quantization (QP)", QPTable, QPSlider);
+		
+		QPSlider.addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				QP = QPSlider.getValue();
+			}
+		});
+		
+		cons.gridx = 1;
+		holder.add(QPPanel, cons);
+		
 		return holder;
 	}
 	
@@ -353,6 +373,10 @@ public class EncodePanel extends JPanel {
 		return this.SAD_TOLERANCE;
 	}
 	
+	public int get_QP() {
+		return this.QP;
+	}
+	
 	private ImageIcon resize_image(PixelRaster img) {
 		float factor = (float)img.getHeight() / (float)img.getWidth();
 		int width = (int)(((float)this.getWidth() / 2) - (float)this.getWidth() / 16 * 2);
@@ -39,8 +39,6 @@ import Utils.YCbCrMakroBlock;
 public class Frame extends JFrame {
 	private static final long serialVersionUID = 1L;
 	
-	private boolean WRITER_ACTIVE = true;
-	
 	private ColorManager COLOR_MANAGER = new ColorManager();
 	private EntryPoint entryPoint = new EntryPoint();
 	private EncodePanel ENCODE_PANEL = new EncodePanel(this, entryPoint);
@@ -63,7 +61,7 @@ public class Frame extends JFrame {
 			@Override
 			public void windowClosed(WindowEvent e) {
 				entryPoint.stop_encoding_process();
-				WRITER_ACTIVE = false;
+				entryPoint.stop_decoding_process();
 				System.exit(0);
 			}
 		});
@@ -84,18 +82,14 @@ public class Frame extends JFrame {
 		update();
 	}
 	
-	public boolean canWriterWrite() {
-		return this.WRITER_ACTIVE;
-	}
-	
-	public void disposeWriterPermission() {
-		this.WRITER_ACTIVE = false;
-	}
-	
 	public int get_vec_sad_tolerance() {
 		return this.ENCODE_PANEL.get_SAD_tolerance();
 	}
 	
+	public int get_quantization_parameter() {
+		return this.ENCODE_PANEL.get_QP();
+	}
+	
 	public void update_encoder_frame_count(int currentFrame, int totalFrame, boolean percentOnly) {
 		this.ENCODE_PANEL.set_frame_stats(currentFrame, totalFrame, percentOnly);
 		update();
@@ -151,14 +145,7 @@ public class Frame extends JFrame {
 						continue;
 					}
 					
-					double[] YCbCrCol = block.getReversedSubSampleColor(x, y);
-					
-					if (YCbCrCol == null) {
-						System.err.println("Something went wrong at reverse sub sampling! > Set color to WHITE.");
-						YCbCrCol = new double[] {255, 0, 0};
-					}
-					
-					render.setRGB(block.getPosition().x + x, block.getPosition().y + y, this.COLOR_MANAGER.convert_YCbCr_to_RGB(YCbCrCol[0], YCbCrCol[1], YCbCrCol[2]).getRGB());
+					render.setRGB(block.getPosition().x + x, block.getPosition().y + y, this.COLOR_MANAGER.convert_YCbCr_to_ARGB(block.getYVal(x, y), block.getCbVal(x, y), block.getCrVal(x, y)));
 				}
 			}
 		}
@@ -0,0 +1,147 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+/*
+ * Adaptive model for integers coded with the RangeEncoder.
+ * A value v is split into the class k = floor(log2(v + 1)) (unary coded, adaptive)
+ * and the k bits below the leading one of v + 1 (adaptive bit tree for small classes,
+ * direct bits for large ones). Signed values add an adaptive sign bit.
+ */
+public class AdaptiveIntegerModel {
+	private static final int MAX_CLASS = 31;
+	private static final int TREE_CLASSES = 7;
+	
+	private short[] CLASS_PROBS = RangeEncoder.create_model(MAX_CLASS);
+	private short[] SUFFIX_PROBS = RangeEncoder.create_model(1 << TREE_CLASSES);
+	private short[] SIGN_PROBS = RangeEncoder.create_model(1);
+	
+	public AdaptiveIntegerModel() {}
+	
+	/*
+	 * Purpose: Encode an unsigned value
+	 * Return Type: void
+	 * Params: RangeEncoder encoder => Encoder to write to;
+	 * 			int value => Value to encode (0 - 2^31 - 2)
+	 */
+	public void encode(RangeEncoder encoder, int value) {
+		int n = value + 1;
+		int k = 31 - Integer.numberOfLeadingZeros(n);
+		
+		for (int i = 0; i < k; i++) {
+			encoder.encode_bit(this.CLASS_PROBS, i, 1);
+		}
+		
+		if (k < MAX_CLASS) {
+			encoder.encode_bit(this.CLASS_PROBS, k, 0);
+		}
+		
+		if (k >= TREE_CLASSES) {
+			encoder.encode_direct_bits(n, k);
+			return;
+		}
+		
+		//Bit tree: the nodes of class k use the probabilities 2^k to 2^(k + 1) - 2
+		int node = 1;
+		
+		for (int i = k - 1; i >= 0; i--) {
+			int bit = (n >>> i) & 1;
+			encoder.encode_bit(this.SUFFIX_PROBS, (1 << k) - 1 + node, bit);
+			node = (node << 1) | bit;
+		}
+	}
+	
+	/*
+	 * Purpose: Decode an unsigned value
+	 * Return Type: int => Decoded value
+	 * Params: RangeDecoder decoder => Decoder to read from
+	 */
+	public int decode(RangeDecoder decoder) {
+		int k = 0;
+		
+		while (k < MAX_CLASS && decoder.decode_bit(this.CLASS_PROBS, k) == 1) {
+			k++;
+		}
+		
+		if (k >= TREE_CLASSES) {
+			return ((1 << k) | decoder.decode_direct_bits(k)) - 1;
+		}
+		
+		int node = 1;
+		
+		for (int i = 0; i < k; i++) {
+			node = (node << 1) | decoder.decode_bit(this.SUFFIX_PROBS, (1 << k) - 1 + node);
+		}
+		
+		return node - 1;
+	}
+	
+	/*
+	 * Purpose: Encode a signed value (magnitude, then sign)
+	 * Return Type: void
+	 * Params: RangeEncoder encoder => Encoder to write to;
+	 * 			int value => Value to encode
+	 */
+	public void encode_signed(RangeEncoder encoder, int value) {
+		encode(encoder, Math.abs(value));
+		
+		if (value != 0) {
+			encoder.encode_bit(this.SIGN_PROBS, 0, value < 0 ? 1 : 0);
+		}
+	}
+	
+	/*
+	 * Purpose: Decode a signed value
+	 * Return Type: int => Decoded value
+	 * Params: RangeDecoder decoder => Decoder to read from
+	 */
+	public int decode_signed(RangeDecoder decoder) {
+		int magnitude = decode(decoder);
+		
+		if (magnitude != 0 && decoder.decode_bit(this.SIGN_PROBS, 0) == 1) {
+			return -magnitude;
+		}
+		
+		return magnitude;
+	}
+	
+	/*
+	 * Purpose: Encode a signed value that is never 0 (magnitude - 1, then sign)
+	 * Return Type: void
+	 * Params: RangeEncoder encoder => Encoder to write to;
+	 * 			int value => Value to encode (!= 0)
+	 */
+	public void encode_nonzero(RangeEncoder encoder, int value) {
+		encode(encoder, Math.abs(value) - 1);
+		encoder.encode_bit(this.SIGN_PROBS, 0, value < 0 ? 1 : 0);
+	}
+	
+	/*
+	 * Purpose: Decode a signed value that is never 0
+	 * Return Type: int => Decoded value
+	 * Params: RangeDecoder decoder => Decoder to read from
+	 */
+	public int decode_nonzero(RangeDecoder decoder) {
+		int magnitude = decode(decoder) + 1;
+		return decoder.decode_bit(this.SIGN_PROBS, 0) == 1 ? -magnitude : magnitude;
+	}
+}
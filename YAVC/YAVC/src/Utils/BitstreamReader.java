@@ -0,0 +1,117 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Reads values written by the BitstreamWriter from a ByteBuffer.
+ * Reading past the end of the buffer throws a BufferUnderflowException.
+ */
+public class BitstreamReader {
+	private ByteBuffer BUFFER = null;
+	
+	public BitstreamReader(ByteBuffer buffer) {
+		this.BUFFER = buffer;
+	}
+	
+	public BitstreamReader(byte[] data) {
+		this(ByteBuffer.wrap(data));
+	}
+	
+	/*
+	 * Purpose: Read an unsigned 8 bit value
+	 * Return Type: int => Value (0 - 255)
+	 * Params: void
+	 */
+	public int read_byte() {
+		return this.BUFFER.get() & 0xFF;
+	}
+	
+	/*
+	 * Purpose: Read a fixed-width 32 bit value (big endian)
+	 * Return Type: int => Value
+	 * Params: void
+	 */
+	public int read_int() {
+		return this.BUFFER.getInt();
+	}
+	
+	/*
+	 * Purpose: Read a fixed-width 64 bit value (big endian)
+	 * Return Type: long => Value
+	 * Params: void
+	 */
+	public long read_long() {
+		return this.BUFFER.getLong();
+	}
+	
+	/*
+	 * Purpose: Read an unsigned varint
+	 * Return Type: int => Value
+	 * Params: void
+	 */
+	public int read_varint() {
+		int val = 0;
+		
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = this.BUFFER.get();
+			val |= (b & 0x7F) << shift;
+			
+			if ((b & 0x80) == 0) {
+				return val;
+			}
+		}
+		
+		//More than 5 bytes can't be produced by the writer
+		throw new IllegalStateException("Malformed varint at " + (this.BUFFER.position() - 1));
+	}
+	
+	/*
+	 * Purpose: Read a zig-zag mapped varint
+	 * Return Type: int => Signed value
+	 * Params: void
+	 */
+	public int read_signed_varint() {
+		int val = read_varint();
+		return (val >>> 1) ^ -(val & 1);
+	}
+	
+	/*
+	 * Purpose: Read raw bytes
+	 * Return Type: void
+	 * Params: byte[] dest => Destination array;
+	 * 			int offset => First index to fill;
+	 * 			int length => Number of bytes to read
+	 */
+	public void read_bytes(byte[] dest, int offset, int length) {
+		this.BUFFER.get(dest, offset, length);
+	}
+	
+	public boolean has_remaining() {
+		return this.BUFFER.hasRemaining();
+	}
+	
+	public int position() {
+		return this.BUFFER.position();
+	}
+}
@@ -0,0 +1,161 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * Growable byte buffer for the binary YAVC format.
+ * Unsigned values are written as LEB128 varints (7 bits per byte, MSB = more bytes follow),
+ * signed values are zig-zag mapped first (0, -1, 1, -2, ... => 0, 1, 2, 3, ...),
+ * so small coefficients and spans take a single byte.
+ */
+public class BitstreamWriter {
+	private byte[] BUFFER = null;
+	private int SIZE = 0;
+	
+	public BitstreamWriter() {
+		this(1024);
+	}
+	
+	public BitstreamWriter(int initialCapacity) {
+		this.BUFFER = new byte[Math.max(16, initialCapacity)];
+	}
+	
+	/*
+	 * Purpose: Write the lowest 8 bits of a value
+	 * Return Type: void
+	 * Params: int val => Value to write
+	 */
+	public void write_byte(int val) {
+		ensure_capacity(1);
+		this.BUFFER[this.SIZE++] = (byte)val;
+	}
+	
+	/*
+	 * Purpose: Write a fixed-width 32 bit value (big endian)
+	 * Return Type: void
+	 * Params: int val => Value to write
+	 */
+	public void write_int(int val) {
+		ensure_capacity(4);
+		this.BUFFER[this.SIZE++] = (byte)(val >>> 24);
+		this.BUFFER[this.SIZE++] = (byte)(val >>> 16);
+		this.BUFFER[this.SIZE++] = (byte)(val >>> 8);
+		this.BUFFER[this.SIZE++] = (byte)val;
+	}
+	
+	/*
+	 * Purpose: Write a fixed-width 64 bit value (big endian)
+	 * Return Type: void
+	 * Params: long val => Value to write
+	 */
+	public void write_long(long val) {
+		write_int((int)(val >>> 32));
+		write_int((int)val);
+	}
+	
+	/*
+	 * Purpose: Write an unsigned value as varint (1 - 5 bytes)
+	 * Return Type: void
+	 * Params: int val => Value to write (interpreted as unsigned)
+	 */
+	public void write_varint(int val) {
+		ensure_capacity(5);
+		
+		while ((val & ~0x7F) != 0) {
+			this.BUFFER[this.SIZE++] = (byte)((val & 0x7F) | 0x80);
+			val >>>= 7;
+		}
+		
+		this.BUFFER[this.SIZE++] = (byte)val;
+	}
+	
+	/*
+	 * Purpose: Write a signed value as zig-zag mapped varint
+	 * Return Type: void
+	 * Params: int val => Value to write
+	 */
+	public void write_signed_varint(int val) {
+		write_varint((val << 1) ^ (val >> 31));
+	}
+	
+	/*
+	 * Purpose: Append raw bytes
+	 * Return Type: void
+	 * Params: byte[] data => Bytes to append;
+	 * 			int offset => First byte to append;
+	 * 			int length => Number of bytes to append
+	 */
+	public void write_bytes(byte[] data, int offset, int length) {
+		ensure_capacity(length);
+		System.arraycopy(data, offset, this.BUFFER, this.SIZE, length);
+		this.SIZE += length;
+	}
+	
+	public int size() {
+		return this.SIZE;
+	}
+	
+	/*
+	 * Purpose: Discard the written bytes (keeps the allocated buffer)
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void reset() {
+		this.SIZE = 0;
+	}
+	
+	/*
+	 * Purpose: Get the written bytes without copying them
+	 * Return Type: ByteBuffer => Buffer from position 0 to size() (backed by this writer)
+	 * Params: void
+	 */
+	public ByteBuffer to_byte_buffer() {
+		return ByteBuffer.wrap(this.BUFFER, 0, this.SIZE);
+	}
+	
+	/*
+	 * Purpose: Write all written bytes into a stream
+	 * Return Type: void
+	 * Params: OutputStream out => Destination stream (stays open)
+	 */
+	public void write_to(OutputStream out) throws IOException {
+		out.write(this.BUFFER, 0, this.SIZE);
+	}
+	
+	public byte[] to_byte_array() {
+		return Arrays.copyOf(this.BUFFER, this.SIZE);
+	}
+	
+	private void ensure_capacity(int additional) {
+		if (this.SIZE + additional <= this.BUFFER.length) {
+			return;
+		}
+		
+		int capacity = Math.max(this.BUFFER.length * 2, this.SIZE + additional);
+		this.BUFFER = Arrays.copyOf(this.BUFFER, capacity);
+	}
+}
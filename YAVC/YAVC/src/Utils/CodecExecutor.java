@@ -0,0 +1,164 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import Main.config;
+
+public class CodecExecutor {
+	/*
+	 * Shared worker pool of all encoder and decoder stages.
+	 * (Created lazily; a host application can inject its own executor)
+	 */
+	private static ExecutorService EXECUTOR = null;
+	private static boolean OWNS_EXECUTOR = false;
+	
+	private CodecExecutor() {}
+	
+	/*
+	 * Purpose: Get the shared executor of the codec (creates the default pool if needed)
+	 * Return Type: ExecutorService => Shared executor
+	 * Params: void
+	 */
+	public static synchronized ExecutorService get_executor() {
+		if (EXECUTOR == null || EXECUTOR.isShutdown()) {
+			EXECUTOR = new ForkJoinPool(get_default_parallelism());
+			OWNS_EXECUTOR = true;
+		}
+		
+		return EXECUTOR;
+	}
+	
+	/*
+	 * Purpose: Let the codec use an executor of the host application.
+	 * 			The injected executor is never shut down by the codec.
+	 * Return Type: void
+	 * Params: ExecutorService executor => Executor to use for all stages
+	 */
+	public static synchronized void set_executor(ExecutorService executor) {
+		if (executor == null) {
+			System.err.println("No executor provided! > Skip");
+			return;
+		}
+		
+		release_owned_executor();
+		EXECUTOR = executor;
+		OWNS_EXECUTOR = false;
+	}
+	
+	/*
+	 * Purpose: Replace the shared pool by a codec owned pool with a specific size
+	 * Return Type: void
+	 * Params: int threads => Amount of worker threads (> 0)
+	 */
+	public static synchronized void set_parallelism(int threads) {
+		if (threads < 1) {
+			System.err.println("Parallelism of " + threads + " is invalid! > Skip");
+			return;
+		}
+		
+		release_owned_executor();
+		EXECUTOR = new ForkJoinPool(threads);
+		OWNS_EXECUTOR = true;
+	}
+	
+	/*
+	 * Purpose: Shut down the shared pool if the codec created it
+	 * Return Type: void
+	 * Params: void
+	 */
+	public static synchronized void shutdown() {
+		release_owned_executor();
+		EXECUTOR = null;
+		OWNS_EXECUTOR = false;
+	}
+	
+	/*
+	 * Work on a range [start, end) of rows (or any other index)
+	 */
+	public interface RangeTask {
+		public void run(int start, int end);
+	}
+	
+	/*
+	 * Purpose: Split a range of rows into bands, run them on the shared executor and wait for all of them
+	 * Return Type: void
+	 * Params: int count => Amount of rows;
+	 * 			int minRowsPerBand => Minimum rows a band should contain (small jobs stay on the caller thread);
+	 * 			RangeTask task => Task to run per band
+	 * Note: Must not be called from a task of a fixed size executor (the caller blocks until all bands are done)
+	 */
+	public static void run_in_bands(int count, int minRowsPerBand, RangeTask task) {
+		int bands = Math.min(count / Math.max(minRowsPerBand, 1), get_parallelism() * 4);
+		
+		if (bands <= 1) {
+			task.run(0, count);
+			return;
+		}
+		
+		ExecutorService executor = get_executor();
+		ArrayList<Future<?>> futures = new ArrayList<Future<?>>(bands);
+		
+		for (int i = 0; i < bands; i++) {
+			final int start = (int)((long)count * i / bands);
+			final int end = (int)((long)count * (i + 1) / bands);
+			futures.add(executor.submit(() -> task.run(start, end)));
+		}
+		
+		for (Future<?> f : futures) {
+			try {
+				f.get();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/*
+	 * Purpose: Get the amount of threads the shared executor works with
+	 * Return Type: int => Parallelism of the executor
+	 * Params: void
+	 */
+	public static synchronized int get_parallelism() {
+		ExecutorService executor = get_executor();
+		
+		if (executor instanceof ForkJoinPool) {
+			return ((ForkJoinPool)executor).getParallelism();
+		}
+		
+		return Runtime.getRuntime().availableProcessors();
+	}
+	
+	private static void release_owned_executor() {
+		if (OWNS_EXECUTOR && EXECUTOR != null) {
+			EXECUTOR.shutdown();
+		}
+	}
+	
+	private static int get_default_parallelism() {
+		return config.WORKER_THREADS > 0 ? config.WORKER_THREADS : Runtime.getRuntime().availableProcessors();
+	}
+}
@@ -24,16 +24,62 @@ package Utils;
 import java.awt.Color;
 
 public class ColorManager {
+	/*
+	 * Fixed-point precision of the conversion tables (16.16)
+	 */
+	public static final int FIXED_SHIFT = 16;
+	private static final int FIXED_ONE = 1 << FIXED_SHIFT;
+	private static final int FIXED_HALF = 1 << (FIXED_SHIFT - 1);
+	
+	/*
+	 * Lookup tables of every product coefficient * value (0 - 255) in fixed-point.
+	 * The offset of 128 and the rounding half are already part of one table each.
+	 */
+	private static final int[] Y_R = new int[256];
+	private static final int[] Y_G = new int[256];
+	private static final int[] Y_B = new int[256];
+	private static final int[] CB_R = new int[256];
+	private static final int[] CB_G = new int[256];
+	private static final int[] CB_B = new int[256];
+	private static final int[] CR_R = new int[256];
+	private static final int[] CR_G = new int[256];
+	private static final int[] CR_B = new int[256];
+	private static final int[] R_CR = new int[256];
+	private static final int[] G_CB = new int[256];
+	private static final int[] G_CR = new int[256];
+	private static final int[] B_CB = new int[256];
+	
+	static {
+		for (int v = 0; v < 256; v++) {
+			Y_R[v] = fixed(0.299 * v);
+			Y_G[v] = fixed(0.587 * v);
+			Y_B[v] = fixed(0.114 * v);
+			CB_R[v] = fixed(-0.168736 * v);
+			CB_G[v] = fixed(-0.331264 * v);
+			CB_B[v] = fixed(0.5 * v) + (128 << FIXED_SHIFT);
+			CR_R[v] = fixed(0.5 * v) + (128 << FIXED_SHIFT);
+			CR_G[v] = fixed(-0.418688 * v);
+			CR_B[v] = fixed(-0.081312 * v);
+			R_CR[v] = fixed(1.402 * (v - 128)) + FIXED_HALF;
+			G_CB[v] = fixed(-0.344136 * (v - 128));
+			G_CR[v] = fixed(-0.714136 * (v - 128)) + FIXED_HALF;
+			B_CB[v] = fixed(1.772 * (v - 128)) + FIXED_HALF;
+		}
+	}
+	
+	public ColorManager() {}
+	
+	private static int fixed(double val) {
+		return (int)Math.round(val * FIXED_ONE);
+	}
+	
 	/*
 	 * Purpose: Convert a RGB color to an YCbCr color
 	 * Return Type: YUVColor => Converted color
 	 * Params: Color color => Color to be converted
 	 */
 	public double[] convert_RGB_to_YCbCr(Color color) {
-		double Y = 0.299 * color.getRed() + 0.587 * color.getGreen() + 0.114 * color.getBlue();
-		double Cb = 128 - 0.168736 * color.getRed() - 0.331264 * color.getGreen() + 0.5 * color.getBlue();
-		double Cr = 128 + 0.5 * color.getRed() - 0.418688 * color.getGreen() - 0.081312 * color.getBlue();
-		return new double[] {Y, Cb, Cr};
+		return convert_RGB_to_YCbCr(color.getRGB());
 	}
 	
 	/*
@@ -42,7 +88,31 @@ public class ColorManager {
 	 * Params: int color => Color to be converted
 	 */
 	public double[] convert_RGB_to_YCbCr(int color) {
-		return convert_RGB_to_YCbCr(new Color(color));
+		int red = (color >> 16) & 0xFF;
+		int green = (color >> 8) & 0xFF;
+		int blue = color & 0xFF;
+		
+		double Y = 0.299 * red + 0.587 * green + 0.114 * blue;
+		double Cb = 128 - 0.168736 * red - 0.331264 * green + 0.5 * blue;
+		double Cr = 128 + 0.5 * red - 0.418688 * green - 0.081312 * blue;
+		return new double[] {Y, Cb, Cr};
+	}
+	
+	/*
+	 * Purpose: Get the Y value of an ARGB color in fixed-point (allocation-free)
+	 * Return Type: int => Y << FIXED_SHIFT
+	 * Params: int argb => Color to convert
+	 */
+	public int get_fixed_Y(int argb) {
+		return Y_R[(argb >> 16) & 0xFF] + Y_G[(argb >> 8) & 0xFF] + Y_B[argb & 0xFF];
+	}
+	
+	public int get_fixed_Cb(int argb) {
+		return CB_R[(argb >> 16) & 0xFF] + CB_G[(argb >> 8) & 0xFF] + CB_B[argb & 0xFF];
+	}
+	
+	public int get_fixed_Cr(int argb) {
+		return CR_R[(argb >> 16) & 0xFF] + CR_G[(argb >> 8) & 0xFF] + CR_B[argb & 0xFF];
 	}
 	
 	/*
@@ -61,13 +131,134 @@ public class ColorManager {
 		return convert_YCbCr_to_RGB(YCbCr[0], YCbCr[1], YCbCr[2]);
 	}
 	
+	/*
+	 * Purpose: Convert 8-bit YCbCr values to an opaque ARGB color (allocation-free)
+	 * Return Type: int => ARGB color
+	 * Params: int Y => Luma (0 - 255);
+	 * 			int Cb => Blue difference (0 - 255);
+	 * 			int Cr => Red difference (0 - 255)
+	 */
+	public int convert_YCbCr_to_ARGB(int Y, int Cb, int Cr) {
+		int fixedY = clamp(Y) << FIXED_SHIFT;
+		Cb = clamp(Cb);
+		Cr = clamp(Cr);
+		
+		int red = clamp((fixedY + R_CR[Cr]) >> FIXED_SHIFT);
+		int green = clamp((fixedY + G_CB[Cb] + G_CR[Cr]) >> FIXED_SHIFT);
+		int blue = clamp((fixedY + B_CB[Cb]) >> FIXED_SHIFT);
+		return 0xFF000000 | (red << 16) | (green << 8) | blue;
+	}
+	
 	/*
 	 * Purpose: Convert an int RGB color to grayscale
 	 * Return Type: int => Grayscale value
 	 * Params: int argb => ARGB value to convert
 	 */
 	public int convert_RGB_to_GRAYSCALE(int argb) {
-		Color col = new Color(argb);
-		return (int)Math.round(col.getRed() * 0.299 + col.getGreen() * 0.587 + col.getBlue() * 0.114);
+		return (get_fixed_Y(argb) + FIXED_HALF) >> FIXED_SHIFT;
+	}
+	
+	/*
+	 * Purpose: Convert a whole ARGB raster to grayscale (rows are converted in parallel)
+	 * Return Type: void
+	 * Params: int[] argb => ARGB raster (row by row);
+	 * 			int[] gray => Destination of the grayscale values (same length as argb);
+	 * 			int width => Width of the raster;
+	 * 			int height => Height of the raster
+	 */
+	public void convert_ARGB_to_GRAYSCALE(int[] argb, int[] gray, int width, int height) {
+		CodecExecutor.run_in_bands(height, 32, (start, end) -> {
+			for (int i = start * width; i < end * width; i++) {
+				gray[i] = (get_fixed_Y(argb[i]) + FIXED_HALF) >> FIXED_SHIFT;
+			}
+		});
+	}
+	
+	/*
+	 * Purpose: Convert a whole ARGB raster to YCbCr planes in one pass (4:2:0, chroma is the
+	 * 			average of each 2x2 area; pairs of rows are converted in parallel)
+	 * Return Type: void
+	 * Params: int[] argb => ARGB raster (row by row, same size as target);
+	 * 			PlanarFrame target => Frame to write the planes into
+	 */
+	public void convert_ARGB_to_planes(int[] argb, PlanarFrame target) {
+		int width = target.getWidth();
+		int height = target.getHeight();
+		int chromaWidth = target.getChromaWidth();
+		int lumaStride = target.getLumaStride();
+		int chromaStride = target.getChromaStride();
+		byte[] Y = target.getLumaPlane();
+		byte[] Cb = target.getCbPlane();
+		byte[] Cr = target.getCrPlane();
+		
+		CodecExecutor.run_in_bands(target.getChromaHeight(), 16, (start, end) -> {
+			for (int cy = start; cy < end; cy++) {
+				int y0 = cy * 2;
+				int rows = y0 + 1 < height ? 2 : 1;
+				
+				for (int cx = 0; cx < chromaWidth; cx++) {
+					int x0 = cx * 2;
+					int cols = x0 + 1 < width ? 2 : 1;
+					int sumCb = 0;
+					int sumCr = 0;
+					
+					for (int y = y0; y < y0 + rows; y++) {
+						for (int x = x0; x < x0 + cols; x++) {
+							int pixel = argb[y * width + x];
+							int red = (pixel >> 16) & 0xFF;
+							int green = (pixel >> 8) & 0xFF;
+							int blue = pixel & 0xFF;
+							
+							Y[y * lumaStride + x] = (byte)clamp((Y_R[red] + Y_G[green] + Y_B[blue] + FIXED_HALF) >> FIXED_SHIFT);
+							sumCb += CB_R[red] + CB_G[green] + CB_B[blue];
+							sumCr += CR_R[red] + CR_G[green] + CR_B[blue];
+						}
+					}
+					
+					int count = rows * cols;
+					int pos = cy * chromaStride + cx;
+					Cb[pos] = (byte)clamp((sumCb + count * FIXED_HALF) / (count << FIXED_SHIFT));
+					Cr[pos] = (byte)clamp((sumCr + count * FIXED_HALF) / (count << FIXED_SHIFT));
+				}
+			}
+		});
+	}
+	
+	/*
+	 * Purpose: Convert YCbCr planes back to an opaque ARGB raster in one pass (rows are converted in parallel)
+	 * Return Type: void
+	 * Params: PlanarFrame source => Frame to convert;
+	 * 			int[] argb => Destination raster (row by row, same size as source)
+	 */
+	public void convert_planes_to_ARGB(PlanarFrame source, int[] argb) {
+		int width = source.getWidth();
+		int lumaStride = source.getLumaStride();
+		int chromaStride = source.getChromaStride();
+		byte[] Y = source.getLumaPlane();
+		byte[] Cb = source.getCbPlane();
+		byte[] Cr = source.getCrPlane();
+		
+		CodecExecutor.run_in_bands(source.getHeight(), 32, (start, end) -> {
+			for (int y = start; y < end; y++) {
+				int lumaRow = y * lumaStride;
+				int chromaRow = (y >> 1) * chromaStride;
+				int outRow = y * width;
+				
+				for (int x = 0; x < width; x++) {
+					int fixedY = (Y[lumaRow + x] & 0xFF) << FIXED_SHIFT;
+					int cb = Cb[chromaRow + (x >> 1)] & 0xFF;
+					int cr = Cr[chromaRow + (x >> 1)] & 0xFF;
+					
+					int red = clamp((fixedY + R_CR[cr]) >> FIXED_SHIFT);
+					int green = clamp((fixedY + G_CB[cb] + G_CR[cr]) >> FIXED_SHIFT);
+					int blue = clamp((fixedY + B_CB[cb]) >> FIXED_SHIFT);
+					argb[outRow + x] = 0xFF000000 | (red << 16) | (green << 8) | blue;
+				}
+			}
+		});
+	}
+	
+	private static int clamp(int val) {
+		return val < 0 ? 0 : (val > 255 ? 255 : val);
 	}
-}
\ No newline at end of file
+}
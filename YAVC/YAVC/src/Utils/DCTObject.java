@@ -24,35 +24,35 @@ package Utils;
 import java.awt.Point;
 
 public class DCTObject {
-	private double[][] Y = null;
-	private double[][] CbDCT = null;
-	private double[][] CrDCT = null;
+	private int[][] Y = null;
+	private int[][] CbDCT = null;
+	private int[][] CrDCT = null;
 	private final int size = 4;
 	private Point Position = null;
 	
-	public DCTObject(double[][] YDCT, double[][] CbDCT, double[][] CrDCT, Point pos) {
+	public DCTObject(int[][] YDCT, int[][] CbDCT, int[][] CrDCT, Point pos) {
 		this.Y = YDCT;
 		this.CbDCT = CbDCT;
 		this.CrDCT = CrDCT;
 		this.Position = pos;
 	}
 	
-	public double[][] getY() {
+	public int[][] getY() {
 		return Y;
 	}
-	public void setY(double[][] y) {
+	public void setY(int[][] y) {
 		Y = y;
 	}
-	public double[][] getCbDCT() {
+	public int[][] getCbDCT() {
 		return CbDCT;
 	}
-	public void setCbDCT(double[][] cbDCT) {
+	public void setCbDCT(int[][] cbDCT) {
 		CbDCT = cbDCT;
 	}
-	public double[][] getCrDCT() {
+	public int[][] getCrDCT() {
 		return CrDCT;
 	}
-	public void setCrDCT(double[][] crDCT) {
+	public void setCrDCT(int[][] crDCT) {
 		CrDCT = crDCT;
 	}
 	public void setPosition(Point position) {
@@ -0,0 +1,155 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+ * Counterpart of the EntropyEncoder, the elements have to be decoded in the order they were encoded.
+ * (decode_coefficient() reads the coefficients of format version 4, which were coded one by one)
+ */
+public class EntropyDecoder {
+	private RangeDecoder DECODER = null;
+	private short[] FLAGS = RangeEncoder.create_model(1);
+	private AdaptiveIntegerModel COUNT = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel POSITION_X = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel POSITION_Y = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel[] LUMA = EntropyEncoder.create_models(EntropyEncoder.COEFFICIENT_CONTEXTS);
+	private AdaptiveIntegerModel[] CHROMA = EntropyEncoder.create_models(EntropyEncoder.COEFFICIENT_CONTEXTS);
+	private short[][] MORE = {RangeEncoder.create_model(EntropyEncoder.COEFFICIENT_CONTEXTS), RangeEncoder.create_model(EntropyEncoder.COEFFICIENT_CONTEXTS)};
+	private AdaptiveIntegerModel[][] RUN = {EntropyEncoder.create_models(EntropyEncoder.RUN_CONTEXTS), EntropyEncoder.create_models(EntropyEncoder.RUN_CONTEXTS)};
+	private AdaptiveIntegerModel[][] LEVEL = {EntropyEncoder.create_models(EntropyEncoder.COEFFICIENT_CONTEXTS), EntropyEncoder.create_models(EntropyEncoder.COEFFICIENT_CONTEXTS)};
+	private AdaptiveIntegerModel VECTOR_POSITION_X = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel VECTOR_POSITION_Y = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel VECTOR_SPAN_X = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel VECTOR_SPAN_Y = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel REFERENCE = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel REFERENCE_SIZE = new AdaptiveIntegerModel();
+	
+	private int LAST_X = 0;
+	private int LAST_Y = 0;
+	private int LAST_VECTOR_X = 0;
+	private int LAST_VECTOR_Y = 0;
+	
+	public EntropyDecoder(ByteBuffer in) {
+		this.DECODER = new RangeDecoder(in);
+	}
+	
+	public int decode_count() {
+		return this.COUNT.decode(this.DECODER);
+	}
+	
+	public boolean decode_flag() {
+		return this.DECODER.decode_bit(this.FLAGS, 0) == 1;
+	}
+	
+	/*
+	 * Purpose: Decode the position of a block
+	 * Return Type: Point => Position of the block
+	 * Params: void
+	 */
+	public Point decode_block_position() {
+		this.LAST_X += this.POSITION_X.decode_signed(this.DECODER);
+		this.LAST_Y += this.POSITION_Y.decode_signed(this.DECODER);
+		return new Point(this.LAST_X, this.LAST_Y);
+	}
+	
+	/*
+	 * Purpose: Decode the quantized coefficients of a block (zig-zag scan, run / level, EOB)
+	 * Return Type: int[][] => Coefficients (NULL if the size is not supported)
+	 * Params: boolean luma => true = luma block; false = chroma block;
+	 * 			int size => Size of the block
+	 */
+	public int[][] decode_block(boolean luma, int size) {
+		int[][] matrix = new int[size][size];
+		return decode_block(luma, matrix) ? matrix : null;
+	}
+	
+	/*
+	 * Purpose: Decode the quantized coefficients of a block into a preallocated matrix (zig-zag scan, run / level, EOB)
+	 * Return Type: boolean => true = decoded; false = size is not supported
+	 * Params: boolean luma => true = luma block; false = chroma block;
+	 * 			int[][] matrix => Square matrix to fill (gets cleared first)
+	 */
+	public boolean decode_block(boolean luma, int[][] matrix) {
+		int size = matrix.length;
+		int[][] scan = EntropyEncoder.get_scan_order(size);
+		
+		if (scan == null) {
+			System.err.println("Block size " + size + " is not supported! > Skip");
+			return false;
+		}
+		
+		for (int[] row : matrix) {
+			Arrays.fill(row, 0);
+		}
+		
+		int plane = luma ? 0 : 1;
+		int[] rows = scan[0];
+		int[] cols = scan[1];
+		int pos = 0;
+		
+		//Flat blocks end with the first bit, all coefficients stay 0
+		while (pos < rows.length && this.DECODER.decode_bit(this.MORE[plane], Math.min(pos, EntropyEncoder.COEFFICIENT_CONTEXTS - 1)) == 1) {
+			pos += this.RUN[plane][Math.min(pos, EntropyEncoder.RUN_CONTEXTS - 1)].decode(this.DECODER);
+			
+			if (pos >= rows.length) {
+				System.err.println("Run leaves the block (" + pos + ")! > Skip");
+				break;
+			}
+			
+			matrix[rows[pos]][cols[pos]] = this.LEVEL[plane][Math.min(pos, EntropyEncoder.COEFFICIENT_CONTEXTS - 1)].decode_nonzero(this.DECODER);
+			pos++;
+		}
+		
+		return true;
+	}
+	
+	/*
+	 * Purpose: Decode a quantized coefficient (format version 4)
+	 * Return Type: int => Coefficient
+	 * Params: boolean luma => true = luma coefficient; false = chroma coefficient;
+	 * 			int index => Position of the coefficient in the block (row by row)
+	 */
+	public int decode_coefficient(boolean luma, int index) {
+		AdaptiveIntegerModel[] models = luma ? this.LUMA : this.CHROMA;
+		return models[Math.min(index, EntropyEncoder.COEFFICIENT_CONTEXTS - 1)].decode_signed(this.DECODER);
+	}
+	
+	/*
+	 * Purpose: Decode a movement vector
+	 * Return Type: Vector => Decoded vector
+	 * Params: void
+	 */
+	public Vector decode_vector() {
+		this.LAST_VECTOR_X += this.VECTOR_POSITION_X.decode_signed(this.DECODER);
+		this.LAST_VECTOR_Y += this.VECTOR_POSITION_Y.decode_signed(this.DECODER);
+		int spanX = this.VECTOR_SPAN_X.decode_signed(this.DECODER);
+		int spanY = this.VECTOR_SPAN_Y.decode_signed(this.DECODER);
+		int ref = this.REFERENCE.decode(this.DECODER);
+		int size = this.REFERENCE_SIZE.decode(this.DECODER);
+		
+		return new Vector(new Point(this.LAST_VECTOR_X, this.LAST_VECTOR_Y), spanX, spanY, ref, size);
+	}
+}
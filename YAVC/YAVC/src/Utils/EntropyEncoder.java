@@ -0,0 +1,203 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+/*
+ * Context-adaptive entropy encoder for the frames (format version 5).
+ * Every syntax element (counts, block positions, luma and chroma coefficients,
+ * vector positions, spans and references) has its own adaptive models.
+ * The models start fresh for every encoder, one encoder per frame keeps the frames independent.
+ * 
+ * Coefficients are scanned in zig-zag order (low to high frequencies) and coded as
+ * {more} {run of zeros} {level} pairs, the block ends with {more} = 0 (EOB),
+ * so the zeros at the end of a block cost a single bit.
+ */
+public class EntropyEncoder {
+	//Coefficients get a context per position in the scan (later positions share the last one)
+	public static final int COEFFICIENT_CONTEXTS = 16;
+	public static final int RUN_CONTEXTS = 4;
+	
+	//Zig-zag scan orders, indexed by the block size (2 - 32)
+	private static final int[][] SCAN_ROWS = new int[33][];
+	private static final int[][] SCAN_COLS = new int[33][];
+	
+	static {
+		for (int m = 1; m <= 32; m *= 2) {
+			create_scan_order(m);
+		}
+	}
+	
+	private RangeEncoder ENCODER = null;
+	private short[] FLAGS = RangeEncoder.create_model(1);
+	private AdaptiveIntegerModel COUNT = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel POSITION_X = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel POSITION_Y = new AdaptiveIntegerModel();
+	private short[][] MORE = {RangeEncoder.create_model(COEFFICIENT_CONTEXTS), RangeEncoder.create_model(COEFFICIENT_CONTEXTS)};
+	private AdaptiveIntegerModel[][] RUN = {create_models(RUN_CONTEXTS), create_models(RUN_CONTEXTS)};
+	private AdaptiveIntegerModel[][] LEVEL = {create_models(COEFFICIENT_CONTEXTS), create_models(COEFFICIENT_CONTEXTS)};
+	private AdaptiveIntegerModel VECTOR_POSITION_X = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel VECTOR_POSITION_Y = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel VECTOR_SPAN_X = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel VECTOR_SPAN_Y = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel REFERENCE = new AdaptiveIntegerModel();
+	private AdaptiveIntegerModel REFERENCE_SIZE = new AdaptiveIntegerModel();
+	
+	private int LAST_X = 0;
+	private int LAST_Y = 0;
+	private int LAST_VECTOR_X = 0;
+	private int LAST_VECTOR_Y = 0;
+	
+	public EntropyEncoder(BitstreamWriter out) {
+		this.ENCODER = new RangeEncoder(out);
+	}
+	
+	public void encode_count(int count) {
+		this.COUNT.encode(this.ENCODER, count);
+	}
+	
+	public void encode_flag(boolean flag) {
+		this.ENCODER.encode_bit(this.FLAGS, 0, flag ? 1 : 0);
+	}
+	
+	/*
+	 * Purpose: Encode the position of a block (as difference to the previous block)
+	 * Return Type: void
+	 * Params: int x => X position of the block;
+	 * 			int y => Y position of the block
+	 */
+	public void encode_block_position(int x, int y) {
+		this.POSITION_X.encode_signed(this.ENCODER, x - this.LAST_X);
+		this.POSITION_Y.encode_signed(this.ENCODER, y - this.LAST_Y);
+		this.LAST_X = x;
+		this.LAST_Y = y;
+	}
+	
+	/*
+	 * Purpose: Encode the quantized coefficients of a block (zig-zag scan, run / level, EOB)
+	 * Return Type: void
+	 * Params: boolean luma => true = luma block; false = chroma block;
+	 * 			int[][] matrix => Coefficients (size x size; size = power of 2 up to 32)
+	 */
+	public void encode_block(boolean luma, int[][] matrix) {
+		int plane = luma ? 0 : 1;
+		int[] rows = SCAN_ROWS[matrix.length];
+		int[] cols = SCAN_COLS[matrix.length];
+		int last = rows.length - 1;
+		
+		while (last >= 0 && matrix[rows[last]][cols[last]] == 0) {
+			last--;
+		}
+		
+		int pos = 0;
+		
+		while (pos <= last) {
+			this.ENCODER.encode_bit(this.MORE[plane], Math.min(pos, COEFFICIENT_CONTEXTS - 1), 1);
+			
+			int start = pos;
+			
+			while (matrix[rows[pos]][cols[pos]] == 0) {
+				pos++;
+			}
+			
+			this.RUN[plane][Math.min(start, RUN_CONTEXTS - 1)].encode(this.ENCODER, pos - start);
+			this.LEVEL[plane][Math.min(pos, COEFFICIENT_CONTEXTS - 1)].encode_nonzero(this.ENCODER, matrix[rows[pos]][cols[pos]]);
+			pos++;
+		}
+		
+		//A full block needs no EOB
+		if (pos < rows.length) {
+			this.ENCODER.encode_bit(this.MORE[plane], Math.min(pos, COEFFICIENT_CONTEXTS - 1), 0);
+		}
+	}
+	
+	/*
+	 * Purpose: Encode a movement vector (the start position as difference to the previous vector)
+	 * Return Type: void
+	 * Params: Vector vec => Vector to encode
+	 */
+	public void encode_vector(Vector vec) {
+		int x = vec.getStartingPoint().x;
+		int y = vec.getStartingPoint().y;
+		
+		this.VECTOR_POSITION_X.encode_signed(this.ENCODER, x - this.LAST_VECTOR_X);
+		this.VECTOR_POSITION_Y.encode_signed(this.ENCODER, y - this.LAST_VECTOR_Y);
+		this.VECTOR_SPAN_X.encode_signed(this.ENCODER, vec.getSpanX());
+		this.VECTOR_SPAN_Y.encode_signed(this.ENCODER, vec.getSpanY());
+		this.REFERENCE.encode(this.ENCODER, vec.getReferenceDrawback());
+		this.REFERENCE_SIZE.encode(this.ENCODER, vec.getReferenceSize());
+		this.LAST_VECTOR_X = x;
+		this.LAST_VECTOR_Y = y;
+	}
+	
+	/*
+	 * Purpose: Flush the encoder (has to be called after the last element)
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void finish() {
+		this.ENCODER.finish();
+	}
+	
+	/*
+	 * Purpose: Get the zig-zag scan order of a block size
+	 * Return Type: int[][] => {rows, columns} of the coefficients in scan order (NULL if the size is not supported)
+	 * Params: int size => Size of the block
+	 */
+	static int[][] get_scan_order(int size) {
+		if (size < 1 || size >= SCAN_ROWS.length || SCAN_ROWS[size] == null) {
+			return null;
+		}
+		
+		return new int[][] {SCAN_ROWS[size], SCAN_COLS[size]};
+	}
+	
+	private static void create_scan_order(int m) {
+		int[] rows = new int[m * m];
+		int[] cols = new int[m * m];
+		int index = 0;
+		
+		//Walk the anti-diagonals, alternating the direction (like JPEG)
+		for (int sum = 0; sum <= 2 * (m - 1); sum++) {
+			int rowStart = Math.max(0, sum - m + 1);
+			int rowEnd = Math.min(sum, m - 1);
+			
+			for (int i = 0; i <= rowEnd - rowStart; i++) {
+				int row = sum % 2 == 0 ? rowEnd - i : rowStart + i;
+				rows[index] = row;
+				cols[index++] = sum - row;
+			}
+		}
+		
+		SCAN_ROWS[m] = rows;
+		SCAN_COLS[m] = cols;
+	}
+	
+	static AdaptiveIntegerModel[] create_models(int count) {
+		AdaptiveIntegerModel[] models = new AdaptiveIntegerModel[count];
+		
+		for (int i = 0; i < count; i++) {
+			models[i] = new AdaptiveIntegerModel();
+		}
+		
+		return models;
+	}
+}
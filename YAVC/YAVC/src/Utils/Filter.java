@@ -26,17 +26,21 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.HashSet;
 
+import Main.config;
+
 public class Filter {
 	private ColorManager COLOR_MANAGER = new ColorManager();
 	
+	public Filter() {}
+	
 	/*
 	 * Purpose: Apply the gaussian blur filter to an image
-	 * Return Type: BufferedImage => Blurred image
-	 * Params: BufferedImage img => Image to blur;
+	 * Return Type: void
+	 * Params: PixelRaster img => Image to blur;
+	 * 			PixelRaster target => Raster for the blurred image (same size, not img; alpha is always opaque);
 	 * 			int radius => Strength of the blurring
 	 */
-	public BufferedImage apply_gaussian_blur(BufferedImage img, int radius) {
-		BufferedImage render = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB);
+	public void apply_gaussian_blur(PixelRaster img, PixelRaster target, int radius) {
 		double sigma = Math.max(((double)radius / 2), 1);
 		double[][] kernel = new double[radius][radius];
 		int mean = radius / 2;
@@ -58,28 +62,34 @@ public class Filter {
 			}
 		}
 		
-		for (int x = 0; x < img.getWidth(); x++) {
-			for (int y = 0; y < img.getHeight(); y++) {
-				int r = 0, g = 0, b = 0;
-				
-				for (int kx = 0; kx < radius; kx++) {
-					for (int ky = 0; ky < radius; ky++) {
-						int pX = Math.min(Math.max(x + kx, 0), img.getWidth() - 1);
-						int pY = Math.min(Math.max(y + ky, 0), img.getHeight() - 1);
-						Color col = new Color(img.getRGB(pX, pY));
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int[] source = img.getData();
+		int[] result = target.getData();
+		
+		//Rows only read the source, so they can be blurred in parallel bands
+		CodecExecutor.run_in_bands(height, config.DECODER_BAND_ROWS, (start, end) -> {
+			for (int y = start; y < end; y++) {
+				for (int x = 0; x < width; x++) {
+					int r = 0, g = 0, b = 0;
+					
+					for (int kx = 0; kx < radius; kx++) {
+						for (int ky = 0; ky < radius; ky++) {
+							int pX = Math.min(Math.max(x + kx, 0), width - 1);
+							int pY = Math.min(Math.max(y + ky, 0), height - 1);
+							int col = source[pY * width + pX];
 						
-						double kVal = kernel[kx][ky];
-						r += (int)(col.getRed() * kVal);
-						g += (int)(col.getGreen() * kVal);
-						b += (int)(col.getBlue() * kVal);
+							double kVal = kernel[kx][ky];
+							r += (int)(((col >> 16) & 0xFF) * kVal);
+							g += (int)(((col >> 8) & 0xFF) * kVal);
+							b += (int)((col & 0xFF) * kVal);
+						}
 					}
+					
+					result[y * width + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
 				}
-				
-				render.setRGB(x, y, new Color(r, g, b).getRGB());
 			}
-		}
-		
-		return render;
+		});
 	}
 
 	/*
@@ -110,6 +120,11 @@ public class Filter {
 		this.currentColors.clear();
 		this.sobel_image = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
 		
+		//Convert once, every pixel is read by 9 kernel positions (twice)
+		int width = img.getWidth();
+		int[] gray = new int[width * img.getHeight()];
+		this.COLOR_MANAGER.convert_ARGB_to_GRAYSCALE(img.getData(), gray, width, img.getHeight());
+		
 		for (int x = 0; x < img.getWidth() - 2; x++) {
 			for (int y = 0; y < img.getHeight() - 2; y++) {
 				Color col = new Color(img.getRGB(x, y));
@@ -126,25 +141,25 @@ public class Filter {
 				}
 				this.currentColors.add(col);
 				
-				double gX = (sobelX[0][0] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x, y)) +
-							sobelX[0][1] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 1, y)) +
-							sobelX[0][2] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 2, y))) +
-							(sobelX[1][0] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x, y + 1)) +
-							sobelX[1][1] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 1, y + 1)) +
-							sobelX[1][2] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 2, y + 1))) +
-							(sobelX[2][0] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x, y + 2)) +
-							sobelX[2][1] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 1, y + 2)) +
-							sobelX[2][2] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 2, y + 2)));
+				double gX = (sobelX[0][0] * gray[y * width + x] +
+							sobelX[0][1] * gray[y * width + x + 1] +
+							sobelX[0][2] * gray[y * width + x + 2]) +
+							(sobelX[1][0] * gray[(y + 1) * width + x] +
+							sobelX[1][1] * gray[(y + 1) * width + x + 1] +
+							sobelX[1][2] * gray[(y + 1) * width + x + 2]) +
+							(sobelX[2][0] * gray[(y + 2) * width + x] +
+							sobelX[2][1] * gray[(y + 2) * width + x + 1] +
+							sobelX[2][2] * gray[(y + 2) * width + x + 2]);
 				
-				double gY = (sobelY[0][0] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x, y)) +
-						sobelY[0][1] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 1, y)) +
-						sobelY[0][2] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 2, y))) +
-						(sobelY[1][0] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x, y + 1)) +
-						sobelY[1][1] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 1, y + 1)) +
-						sobelY[1][2] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 2, y + 1))) +
-						(sobelY[2][0] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x, y + 2)) +
-						sobelY[2][1] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 1, y + 2)) +
-						sobelY[2][2] * this.COLOR_MANAGER.convert_RGB_to_GRAYSCALE(img.getRGB(x + 2, y + 2)));
+				double gY = (sobelY[0][0] * gray[y * width + x] +
+						sobelY[0][1] * gray[y * width + x + 1] +
+						sobelY[0][2] * gray[y * width + x + 2]) +
+						(sobelY[1][0] * gray[(y + 1) * width + x] +
+						sobelY[1][1] * gray[(y + 1) * width + x + 1] +
+						sobelY[1][2] * gray[(y + 1) * width + x + 2]) +
+						(sobelY[2][0] * gray[(y + 2) * width + x] +
+						sobelY[2][1] * gray[(y + 2) * width + x + 1] +
+						sobelY[2][2] * gray[(y + 2) * width + x + 2]);
 				
 				int val = Math.min((int)Math.sqrt(gX * gX + gY * gY), 255);
 				array[x][y] = val;
@@ -186,6 +201,9 @@ public class Filter {
 	 * Params: PixelRaster img1 => Reference image;
 	 * 			PixelRaster img2 => Image to damp;
 	 */
+	private static final int DAMP_Y_TOLERANCE = 3 << ColorManager.FIXED_SHIFT;
+	private static final int DAMP_C_TOLERANCE = 8 << ColorManager.FIXED_SHIFT;
+	
 	public void damp_frame_colors(PixelRaster img1, PixelRaster img2) {
 		if (img1 == null || img2 == null) {
 			System.err.println("No frames to damp colors in!");
@@ -205,14 +223,11 @@ public class Filter {
 			for (int x = 0; x < width; x++) {
 				int pixel1 = img1.getRGB(x, y);
 				int pixel2 = img2.getRGB(x, y);
-				double[] prevCol = this.COLOR_MANAGER.convert_RGB_to_YCbCr(pixel1);
-				double[] curCol = this.COLOR_MANAGER.convert_RGB_to_YCbCr(pixel2);
-				
-				double deltaY = Math.abs(prevCol[0] - curCol[0]);
-				double deltaCb = Math.abs(prevCol[1] - curCol[1]);
-				double deltaCr = Math.abs(prevCol[2] - curCol[2]);
+				int deltaY = Math.abs(this.COLOR_MANAGER.get_fixed_Y(pixel1) - this.COLOR_MANAGER.get_fixed_Y(pixel2));
+				int deltaCb = Math.abs(this.COLOR_MANAGER.get_fixed_Cb(pixel1) - this.COLOR_MANAGER.get_fixed_Cb(pixel2));
+				int deltaCr = Math.abs(this.COLOR_MANAGER.get_fixed_Cr(pixel1) - this.COLOR_MANAGER.get_fixed_Cr(pixel2));
 				
-				if (deltaY > 3.0 || deltaCb > 8.0 || deltaCr > 8.0) {
+				if (deltaY > DAMP_Y_TOLERANCE || deltaCb > DAMP_C_TOLERANCE || deltaCr > DAMP_C_TOLERANCE) {
 					continue;
 				}
 				
@@ -221,6 +236,54 @@ public class Filter {
 		}
 	}
 	
+	/*
+	 * Purpose: Damp small color changes against the reference directly on the planes (for sources that hand out planes):
+	 * 			A 2x2 area keeps the chroma of the reference if Cb and Cr are within the tolerance,
+	 * 			its luma samples keep the luma of the reference if Y is within the tolerance as well.
+	 * Return Type: void
+	 * Params: PlanarFrame reference => Previous frame;
+	 * 			PlanarFrame frame => Frame to damp (gets updated)
+	 */
+	public void damp_frame_colors(PlanarFrame reference, PlanarFrame frame) {
+		if (reference == null || frame == null) {
+			System.err.println("No frames to damp colors in!");
+			return;
+		}
+		
+		if (reference.getWidth() != frame.getWidth() || reference.getHeight() != frame.getHeight()) {
+			System.err.println("Images are not compareable!");
+			return;
+		}
+		
+		int yTolerance = DAMP_Y_TOLERANCE >> ColorManager.FIXED_SHIFT;
+		int cTolerance = DAMP_C_TOLERANCE >> ColorManager.FIXED_SHIFT;
+		byte[] refY = reference.getLumaPlane(), refCb = reference.getCbPlane(), refCr = reference.getCrPlane();
+		byte[] Y = frame.getLumaPlane(), Cb = frame.getCbPlane(), Cr = frame.getCrPlane();
+		
+		for (int cy = 0; cy < frame.getChromaHeight(); cy++) {
+			for (int cx = 0; cx < frame.getChromaWidth(); cx++) {
+				int pos = cy * frame.getChromaStride() + cx;
+				
+				if (Math.abs((refCb[pos] & 0xFF) - (Cb[pos] & 0xFF)) > cTolerance || Math.abs((refCr[pos] & 0xFF) - (Cr[pos] & 0xFF)) > cTolerance) {
+					continue;
+				}
+				
+				Cb[pos] = refCb[pos];
+				Cr[pos] = refCr[pos];
+				
+				for (int y = cy * 2; y < Math.min(cy * 2 + 2, frame.getHeight()); y++) {
+					for (int x = cx * 2; x < Math.min(cx * 2 + 2, frame.getWidth()); x++) {
+						int lumaPos = y * frame.getLumaStride() + x;
+						
+						if (Math.abs((refY[lumaPos] & 0xFF) - (Y[lumaPos] & 0xFF)) <= yTolerance) {
+							Y[lumaPos] = refY[lumaPos];
+						}
+					}
+				}
+			}
+		}
+	}
+	
 	public void flatten_down_color(ArrayList<YCbCrMakroBlock> blocks) {
 		for (YCbCrMakroBlock b : blocks) {
 			//Flatten Y-Component
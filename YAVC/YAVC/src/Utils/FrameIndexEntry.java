@@ -0,0 +1,66 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+/*
+ * Entry of the frame index in a YAVC container.
+ * References are stored as distances (1 = previous frame), timestamps in frames of the frame rate.
+ */
+public class FrameIndexEntry {
+	private long offset = 0;
+	private int size = 0;
+	private boolean intra = false;
+	private int[] references = new int[0];
+	private int timestamp = 0;
+	
+	public FrameIndexEntry(long offset, int size, boolean intra, int[] references, int timestamp) {
+		this.offset = offset;
+		this.size = size;
+		this.intra = intra;
+		this.references = references;
+		this.timestamp = timestamp;
+	}
+	
+	public long getOffset() {
+		return offset;
+	}
+	
+	public int getSize() {
+		return size;
+	}
+	
+	public boolean isIntra() {
+		return intra;
+	}
+	
+	public int[] getReferences() {
+		return references;
+	}
+	
+	public int getTimestamp() {
+		return timestamp;
+	}
+	
+	public void setTimestamp(int timestamp) {
+		this.timestamp = timestamp;
+	}
+}
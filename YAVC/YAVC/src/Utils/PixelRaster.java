@@ -30,6 +30,11 @@ public class PixelRaster {
 	private int[] data = null;
 	private Dimension dim = null;
 	
+	public PixelRaster(int width, int height) {
+		this.dim = new Dimension(width, height);
+		this.data = new int[width * height];
+	}
+	
 	public PixelRaster(BufferedImage img) {
 		this.dim = new Dimension(img.getWidth(), img.getHeight());
 		this.data = new int[img.getWidth() * img.getHeight()];
@@ -78,6 +83,15 @@ public class PixelRaster {
 		this.data[pos] = rgb;
 	}
 	
+	/*
+	 * Purpose: Get the raw ARGB data (row by row; shared with the image if possible)
+	 * Return Type: int[] => ARGB data
+	 * Params: void
+	 */
+	public int[] getData() {
+		return this.data;
+	}
+	
 	public int getWidth() {
 		return this.dim.width;
 	}
@@ -86,15 +100,15 @@ public class PixelRaster {
 		return this.dim.height;
 	}
 	
+	/*
+	 * Purpose: Copy the raster into a new image (the raster can be reused afterwards)
+	 * Return Type: BufferedImage => Image of type TYPE_INT_ARGB
+	 * Params: void
+	 */
 	public BufferedImage toBufferedImage() {
 		BufferedImage render = new BufferedImage(this.dim.width, this.dim.height, BufferedImage.TYPE_INT_ARGB);
-		
-		for (int y = 0; y < this.dim.height; y++) {
-			for (int x = 0; x < this.dim.width; x++) {
-				render.setRGB(x, y, getRGB(x, y));
-			}
-		}
-		
+		int[] target = ((DataBufferInt)render.getRaster().getDataBuffer()).getData();
+		System.arraycopy(this.data, 0, target, 0, target.length);
 		return render;
 	}
 }
@@ -0,0 +1,130 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+/*
+ * YCbCr frame with 4:2:0 subsampling, stored in flat 8-bit planes.
+ * The chroma planes have half the width and height of the luma plane (rounded up).
+ */
+public class PlanarFrame {
+	private byte[] Y = null;
+	private byte[] Cb = null;
+	private byte[] Cr = null;
+	
+	private int width = 0;
+	private int height = 0;
+	private int lumaStride = 0;
+	private int chromaWidth = 0;
+	private int chromaHeight = 0;
+	private int chromaStride = 0;
+	
+	public PlanarFrame(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.lumaStride = width;
+		this.chromaWidth = (width + 1) / 2;
+		this.chromaHeight = (height + 1) / 2;
+		this.chromaStride = this.chromaWidth;
+		
+		this.Y = new byte[this.lumaStride * height];
+		this.Cb = new byte[this.chromaStride * this.chromaHeight];
+		this.Cr = new byte[this.chromaStride * this.chromaHeight];
+	}
+	
+	/*
+	 * Purpose: Check whether a luma position lies inside the frame
+	 * Return Type: boolean => true = inside; false = outside
+	 * Params: int x => X coordinate;
+	 * 			int y => Y coordinate
+	 */
+	public boolean contains(int x, int y) {
+		return x >= 0 && y >= 0 && x < this.width && y < this.height;
+	}
+	
+	public int getY(int x, int y) {
+		return this.Y[y * this.lumaStride + x] & 0xFF;
+	}
+	
+	public void setY(int x, int y, int val) {
+		this.Y[y * this.lumaStride + x] = (byte)clamp(val);
+	}
+	
+	/*
+	 * Purpose: Get the Cb value of a chroma sample
+	 * Return Type: int => Cb value (0 - 255)
+	 * Params: int cx => X coordinate in the chroma plane;
+	 * 			int cy => Y coordinate in the chroma plane
+	 */
+	public int getCb(int cx, int cy) {
+		return this.Cb[cy * this.chromaStride + cx] & 0xFF;
+	}
+	
+	public int getCr(int cx, int cy) {
+		return this.Cr[cy * this.chromaStride + cx] & 0xFF;
+	}
+	
+	public void setChroma(int cx, int cy, int Cb, int Cr) {
+		int pos = cy * this.chromaStride + cx;
+		this.Cb[pos] = (byte)clamp(Cb);
+		this.Cr[pos] = (byte)clamp(Cr);
+	}
+	
+	private int clamp(int val) {
+		return val < 0 ? 0 : (val > 255 ? 255 : val);
+	}
+	
+	public byte[] getLumaPlane() {
+		return this.Y;
+	}
+	
+	public byte[] getCbPlane() {
+		return this.Cb;
+	}
+	
+	public byte[] getCrPlane() {
+		return this.Cr;
+	}
+	
+	public int getWidth() {
+		return this.width;
+	}
+	
+	public int getHeight() {
+		return this.height;
+	}
+	
+	public int getLumaStride() {
+		return this.lumaStride;
+	}
+	
+	public int getChromaWidth() {
+		return this.chromaWidth;
+	}
+	
+	public int getChromaHeight() {
+		return this.chromaHeight;
+	}
+	
+	public int getChromaStride() {
+		return this.chromaStride;
+	}
+}
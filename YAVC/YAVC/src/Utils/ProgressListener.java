@@ -0,0 +1,69 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/*
+ * Receives the progress of an encoding or decoding process.
+ * Only progress() has to be implemented; the preview callbacks are
+ * only invoked if wants_previews() returns true.
+ */
+public interface ProgressListener {
+	/*
+	 * Purpose: Called after each processed frame
+	 * Return Type: void
+	 * Params: int currentFrame => Index of the processed frame;
+	 * 			int totalFrames => Amount of frames in the sequence (-1 = unknown, e.g. a piped stream)
+	 */
+	public void progress(int currentFrame, int totalFrames);
+	
+	/*
+	 * Purpose: Called once the process ended
+	 * Return Type: void
+	 * Params: boolean completed => true = all frames done; false = stopped or failed
+	 */
+	public default void finished(boolean completed) {}
+	
+	/*
+	 * Purpose: Whether preview images should be rendered (costs time on every frame)
+	 * Return Type: boolean => true = render previews; false = skip
+	 * Params: void
+	 */
+	public default boolean wants_previews() {
+		return false;
+	}
+	
+	public default void frame_previews(PixelRaster previous, PixelRaster current) {}
+	
+	public default void sobel_preview(BufferedImage img) {}
+	
+	public default void makroblock_preview(BufferedImage img) {}
+	
+	public default void difference_preview(ArrayList<YCbCrMakroBlock> differences, Dimension dim) {}
+	
+	public default void vector_preview(BufferedImage img) {}
+	
+	public default void decoded_frame_preview(BufferedImage img) {}
+}
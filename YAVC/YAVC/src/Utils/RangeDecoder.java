@@ -0,0 +1,98 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Decoder for the streams of the RangeEncoder.
+ * Reading past the end of the buffer behaves like reading zeros.
+ */
+public class RangeDecoder {
+	private ByteBuffer IN = null;
+	private int RANGE = 0xFFFFFFFF;
+	private int CODE = 0;
+	
+	public RangeDecoder(ByteBuffer in) {
+		this.IN = in;
+		
+		for (int i = 0; i < 5; i++) {
+			this.CODE = (this.CODE << 8) | next_byte();
+		}
+	}
+	
+	/*
+	 * Purpose: Decode a bit with an adaptive probability
+	 * Return Type: int => Decoded bit (0 or 1)
+	 * Params: short[] probs => Probabilities of the model;
+	 * 			int index => Probability to use
+	 */
+	public int decode_bit(short[] probs, int index) {
+		int prob = probs[index];
+		int bound = (this.RANGE >>> RangeEncoder.PROBABILITY_BITS) * prob;
+		int bit = 0;
+		
+		if ((this.CODE ^ 0x80000000) < (bound ^ 0x80000000)) {
+			this.RANGE = bound;
+			probs[index] = (short)(prob + (((1 << RangeEncoder.PROBABILITY_BITS) - prob) >>> RangeEncoder.MOVE_BITS));
+		} else {
+			this.RANGE -= bound;
+			this.CODE -= bound;
+			probs[index] = (short)(prob - (prob >>> RangeEncoder.MOVE_BITS));
+			bit = 1;
+		}
+		
+		while ((this.RANGE & 0xFF000000) == 0) {
+			this.CODE = (this.CODE << 8) | next_byte();
+			this.RANGE <<= 8;
+		}
+		
+		return bit;
+	}
+	
+	/*
+	 * Purpose: Decode bits with a fixed probability of 0.5
+	 * Return Type: int => Decoded value
+	 * Params: int count => Number of bits to decode
+	 */
+	public int decode_direct_bits(int count) {
+		int result = 0;
+		
+		for (int i = 0; i < count; i++) {
+			this.RANGE >>>= 1;
+			int t = (this.CODE - this.RANGE) >>> 31;
+			this.CODE -= this.RANGE & (t - 1);
+			result = (result << 1) | (1 - t);
+			
+			if ((this.RANGE & 0xFF000000) == 0) {
+				this.CODE = (this.CODE << 8) | next_byte();
+				this.RANGE <<= 8;
+			}
+		}
+		
+		return result;
+	}
+	
+	private int next_byte() {
+		return this.IN.hasRemaining() ? this.IN.get() & 0xFF : 0;
+	}
+}
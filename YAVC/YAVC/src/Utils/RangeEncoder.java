@@ -0,0 +1,132 @@
+/////////////////////////////////////////////////////////////
+///////////////////////    LICENSE    ///////////////////////
+/////////////////////////////////////////////////////////////
+/*
+The YAVC video / frame compressor compresses frames.
+Copyright (C) 2024  Lukas Nian En Lampl
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation, either version 3 of the License, or
+any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+package Utils;
+
+import java.util.Arrays;
+
+/*
+ * Adaptive binary range encoder (same scheme as the LZMA range coder).
+ * Every bit is coded with an 11 bit probability that adapts after each bit,
+ * the probabilities are stored in short[] models owned by the caller.
+ */
+public class RangeEncoder {
+	public static final int PROBABILITY_BITS = 11;
+	public static final int PROBABILITY_INIT = (1 << PROBABILITY_BITS) / 2;
+	public static final int MOVE_BITS = 5;
+	
+	private BitstreamWriter OUT = null;
+	private long LOW = 0;
+	private int RANGE = 0xFFFFFFFF;
+	private int CACHE = 0;
+	private long CACHE_SIZE = 1;
+	
+	public RangeEncoder(BitstreamWriter out) {
+		this.OUT = out;
+	}
+	
+	/*
+	 * Purpose: Encode a bit with an adaptive probability
+	 * Return Type: void
+	 * Params: short[] probs => Probabilities of the model;
+	 * 			int index => Probability to use;
+	 * 			int bit => Bit to encode (0 or 1)
+	 */
+	public void encode_bit(short[] probs, int index, int bit) {
+		int prob = probs[index];
+		int bound = (this.RANGE >>> PROBABILITY_BITS) * prob;
+		
+		if (bit == 0) {
+			this.RANGE = bound;
+			probs[index] = (short)(prob + (((1 << PROBABILITY_BITS) - prob) >>> MOVE_BITS));
+		} else {
+			this.LOW += bound & 0xFFFFFFFFL;
+			this.RANGE -= bound;
+			probs[index] = (short)(prob - (prob >>> MOVE_BITS));
+		}
+		
+		while ((this.RANGE & 0xFF000000) == 0) {
+			this.RANGE <<= 8;
+			shift_low();
+		}
+	}
+	
+	/*
+	 * Purpose: Encode bits with a fixed probability of 0.5 (for values without useful statistics)
+	 * Return Type: void
+	 * Params: int value => Value to encode;
+	 * 			int count => Number of low bits to encode (MSB first)
+	 */
+	public void encode_direct_bits(int value, int count) {
+		for (int i = count - 1; i >= 0; i--) {
+			this.RANGE >>>= 1;
+			
+			if (((value >>> i) & 1) == 1) {
+				this.LOW += this.RANGE & 0xFFFFFFFFL;
+			}
+			
+			if ((this.RANGE & 0xFF000000) == 0) {
+				this.RANGE <<= 8;
+				shift_low();
+			}
+		}
+	}
+	
+	/*
+	 * Purpose: Flush the remaining state (has to be called after the last bit)
+	 * Return Type: void
+	 * Params: void
+	 */
+	public void finish() {
+		for (int i = 0; i < 5; i++) {
+			shift_low();
+		}
+	}
+	
+	private void shift_low() {
+		int lowHigh = (int)(this.LOW >>> 32);
+		
+		if (lowHigh != 0 || this.LOW < 0xFF000000L) {
+			int temp = this.CACHE;
+			
+			do {
+				this.OUT.write_byte(temp + lowHigh);
+				temp = 0xFF;
+			} while (--this.CACHE_SIZE != 0);
+			
+			this.CACHE = (int)(this.LOW >>> 24) & 0xFF;
+		}
+		
+		this.CACHE_SIZE++;
+		this.LOW = (this.LOW & 0x00FFFFFFL) << 8;
+	}
+	
+	/*
+	 * Purpose: Create the probabilities of a model
+	 * Return Type: short[] => Probabilities (all at 0.5)
+	 * Params: int size => Number of probabilities
+	 */
+	public static short[] create_model(int size) {
+		short[] probs = new short[size];
+		Arrays.fill(probs, (short)PROBABILITY_INIT);
+		return probs;
+	}
+}
@@ -18,16 +18,17 @@ GNU General Public License for more details.
 You should have received a copy of the GNU General Public License
 along with this program.  If not, see <https://www.gnu.org/licenses/>.
 */
-
 package Utils;
 
 import java.awt.Point;
 
+/*
+ * Lightweight view (position + size) of a block in a PlanarFrame.
+ * All samples are read from and written to the frame directly, nothing is copied.
+ * Samples outside of the frame read as 0 and have an A value of 255.
+ */
 public class YCbCrMakroBlock {
-	private double[][] Y = null;
-	private double[][] Cb = null;
-	private double[][] Cr = null;
-	private double[][] A = null;
+	private PlanarFrame frame = null;
 	
 	private Point position = new Point(0, 0);
 	private double SAD = Float.MAX_VALUE;
@@ -36,74 +37,85 @@ public class YCbCrMakroBlock {
 	private boolean edgeBlock = false;
 	private int complexity = 0;
 
-	public YCbCrMakroBlock(double[][] Y, double[][] Cb, double[][] Cr, double[][] A, Point position, int size) {
-		this.Y = Y;
-		this.Cb = Cb;
-		this.Cr = Cr;
-		this.A = A;
-		this.position = position;
-		this.size = size;
-	}
-	
-	public YCbCrMakroBlock(Point position, int size) {
-		this.Y = new double[size][size];
-		this.Cb = new double[size / 2][size / 2];
-		this.Cr = new double[size / 2][size / 2];
-		this.A = new double[size][size];
+	public YCbCrMakroBlock(PlanarFrame frame, Point position, int size) {
+		this.frame = frame;
 		this.position = position;
 		this.size = size;
 	}
 	
-	public double[][] getLuma() {
-		return this.Y;
+	public PlanarFrame getFrame() {
+		return this.frame;
 	}
 	
-	public double[][] getChromaCb() {
-		return this.Cb;
-	}
-	
-	public double getChromaCb(int x, int y) {
-		return this.Cb[x][y];
+	/*
+	 * Purpose: Get the Cb value of a subsampled position in the block
+	 * Return Type: int => Cb value
+	 * Params: int x => X coordinate in the subsampled block (0 - size / 2);
+	 * 			int y => Y coordinate in the subsampled block (0 - size / 2)
+	 */
+	public int getChromaCb(int x, int y) {
+		int cx = (this.position.x >> 1) + x;
+		int cy = (this.position.y >> 1) + y;
+		
+		if (cx >= this.frame.getChromaWidth() || cy >= this.frame.getChromaHeight() || cx < 0 || cy < 0) {
+			return 0;
+		}
+		
+		return this.frame.getCb(cx, cy);
 	}
 	
-	public double[][] getCromaCr() {
-		return this.Cr;
+	public int getChromaCr(int x, int y) {
+		int cx = (this.position.x >> 1) + x;
+		int cy = (this.position.y >> 1) + y;
+		
+		if (cx >= this.frame.getChromaWidth() || cy >= this.frame.getChromaHeight() || cx < 0 || cy < 0) {
+			return 0;
+		}
+		
+		return this.frame.getCr(cx, cy);
 	}
 	
-	public double getChromaCr(int x, int y) {
-		return this.Cr[x][y];
+	public void setChroma(int x, int y, double Cb, double Cr) {
+		setChroma(x, y, (int)Math.round(Cb), (int)Math.round(Cr));
 	}
 	
-	public void setYAndA(int x, int y, double Y, double A) {
-		if (this.Y == null || this.A == null) {
-			System.err.println("No YCbCr component!");
-			return;
-		}
+	public void setChroma(int x, int y, int Cb, int Cr) {
+		int cx = (this.position.x >> 1) + x;
+		int cy = (this.position.y >> 1) + y;
 		
-		if (A > 0) {
-			this.A[x][y] = A;
+		if (cx >= this.frame.getChromaWidth() || cy >= this.frame.getChromaHeight() || cx < 0 || cy < 0) {
 			return;
 		}
 		
-		this.Y[x][y] = Y;
-		this.A[x][y] = A;
+		this.frame.setChroma(cx, cy, Cb, Cr);
 	}
 	
-	public void setColor(int x, int y, double Y, double Cb, double Cr, double A) {
-		if (this.Y == null || this.Cb == null || this.Cr == null || this.A == null) {
-			System.err.println("No YCbCr component!");
-			return;
+	/*
+	 * Purpose: Get the Cb value of a pixel in the block (reverses the subsampling)
+	 * Return Type: int => Cb value
+	 * Params: int x => X coordinate in the block;
+	 * 			int y => Y coordinate in the block
+	 */
+	public int getCbVal(int x, int y) {
+		int px = this.position.x + x;
+		int py = this.position.y + y;
+		
+		if (!this.frame.contains(px, py)) {
+			return 0;
 		}
 		
-		if (A > 0) {
-			this.A[x][y] = A;
-			return;
+		return this.frame.getCb(px >> 1, py >> 1);
+	}
+	
+	public int getCrVal(int x, int y) {
+		int px = this.position.x + x;
+		int py = this.position.y + y;
+		
+		if (!this.frame.contains(px, py)) {
+			return 0;
 		}
 		
-		this.Y[x][y] = Y;
-		this.Cb[x][y] = Cb;
-		this.Cr[x][y] = Cr;
-		this.A[x][y] = A;
+		return this.frame.getCr(px >> 1, py >> 1);
 	}
 	
 	public double[] getReversedSubSampleColor(int x, int y) {
@@ -115,44 +127,37 @@ public class YCbCrMakroBlock {
 			return null;
 		}
 		
-		int subSPosX = Math.round(x / 2);
-		int subSPosY = Math.round(y / 2);
-		return new double[] {this.Y[x][y], this.Cb[subSPosX][subSPosY], this.Cr[subSPosX][subSPosY], this.A[x][y]};
+		return new double[] {getYVal(x, y), getCbVal(x, y), getCrVal(x, y), getAVal(x, y)};
 	}
 	
 	public void setYVal(int x, int y, double Y) {
-		if (this.Y == null) {
-			System.err.println("No YCbCr component!");
+		setYVal(x, y, (int)Math.round(Y));
+	}
+	
+	public void setYVal(int x, int y, int Y) {
+		int px = this.position.x + x;
+		int py = this.position.y + y;
+		
+		if (!this.frame.contains(px, py)) {
 			return;
 		}
 		
-		this.Y[x][y] = Y;
-	}
-	
-	public double getYVal(int x, int y) {
-		return this.Y[x][y];
-	}
-	
-	public double[][] getYValues() {
-		return this.Y;
-	}
-	
-	public void setYValues(double[][] YValues) {
-		this.Y = YValues;
+		this.frame.setY(px, py, Y);
 	}
 	
-	public void setChroma(int x, int y, double Cb, double Cr) {
-		if (this.Cb == null || this.Cr == null) {
-			System.err.println("No YCbCr component!");
-			return;
+	public int getYVal(int x, int y) {
+		int px = this.position.x + x;
+		int py = this.position.y + y;
+		
+		if (!this.frame.contains(px, py)) {
+			return 0;
 		}
 		
-		this.Cb[x][y] = Cb;
-		this.Cr[x][y] = Cr;
+		return this.frame.getY(px, py);
 	}
 	
-	public double getAVal(int x, int y) {
-		return this.A[x][y];
+	public int getAVal(int x, int y) {
+		return this.frame.contains(this.position.x + x, this.position.y + y) ? 0 : 255;
 	}
 
 	public Point getPosition() {
@@ -196,14 +201,14 @@ public class YCbCrMakroBlock {
 	}
 	
 	/*
-	 * Purpose: Splits a bigger MakroBlock to a smaller one
+	 * Purpose: Splits a bigger MakroBlock to smaller ones (views of the same frame)
 	 * Return Type: YCbCrMakroBlock[] => Array of smaller blocks
 	 * Params: int size => Split size
 	 */
 	public YCbCrMakroBlock[] splitToSmaller(int size) {
-		if (this.Y == null || this.Cb == null || this.Cr == null) {
+		if (this.frame == null) {
 			System.err.println("Can't execute split!");
-			System.err.println("Colors is NULL, nothing to split!");
+			System.err.println("Frame is NULL, nothing to split!");
 			return null;
 		} else if (size <= 0) {
 			System.err.println("Can't execute split!");
@@ -216,42 +221,12 @@ public class YCbCrMakroBlock {
 		
 		for (int y = 0; y < this.size; y += size) {
 			for (int x = 0; x < this.size; x += size) {
-				b[index++] = getSubBlock(size, x, y);
+				b[index++] = new YCbCrMakroBlock(this.frame, new Point(this.position.x + x, this.position.y + y), size);
 			}
 		}
 		
 		return b;
 	}
-	
-	/*
-	 * Purpose: Gets a Subblock from the current block
-	 * Return Type: YCbCrMakroBlock => Smaller block
-	 * Params: int size => Size of the smaller block;
-	 * 			int px => Position X from color array;
-	 * 			int py => Position Y from color array
-	 */
-	private YCbCrMakroBlock getSubBlock(int size, int px, int py) {
-		YCbCrMakroBlock block = new YCbCrMakroBlock(new Point(this.position.x + px, this.position.y + py), size);
-		
-		for (int y = 0; y < size; y++) {
-			int posY = py + y;
-			
-			for (int x = 0; x < size; x++) {
-				int posX = px + x;
-				
-				if (posY >= this.size
-					|| posX >= this.size) {
-					block.setColor(y, x, 0, 0, 0, 255);
-					continue;
-				}
-				
-				block.setYAndA(x, y, this.Y[posX][posY], this.A[posX][posY]);
-				block.setChroma(x / 2, y / 2, this.Cb[posX / 2][posY / 2], this.Cr[posX / 2][posY / 2]);
-			}
-		}
-		
-		return block;
-	}
 
 	public int getComplexity() {
 		return complexity;
@@ -3,5 +3,9 @@
  * @COPYRIGHT: Copyright (C) 2024
  */
 module YAVC {
-	requires java.desktop;
+	requires transitive java.desktop;
+	
+	exports Encoder;
+	exports Decoder;
+	exports Utils;
 }
\ No newline at end of file